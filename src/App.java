@@ -7,6 +7,8 @@ import geometry.SqueezedCylinder;
 import geometry.Surface3D;
 import geometry.Vector3D;
 import graphics.Janim3D;
+import graphics.RenderLoop;
+import graphics.RenderStats;
 import hanoi.Peg;
 import math.Transform;
 import projection.Projection;
@@ -14,6 +16,7 @@ import projection.Projection;
 import javax.swing.*;
 
 import java.awt.Color;
+import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.event.ActionEvent;
 
@@ -45,6 +48,7 @@ public class App extends JFrame {
 
     // Animation objects
     private final Janim3D janim;
+    private final RenderLoop renderLoop;
     private final Cube cube;
     private static final int CUBE_SIZE = 10;
     private final Curve3D curve;
@@ -52,6 +56,8 @@ public class App extends JFrame {
     private final SqueezedCylinder cylinder;
     private final GaussSurface3D gauss;
     private Shape currentShape;
+    private volatile boolean showStats = false;
+    private static final Font STATS_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
 
     // Frame parameters
     private static final int WIDTH = 1000;
@@ -70,9 +76,10 @@ public class App extends JFrame {
         janim.setCamPosition(initialCamPosition);
         janim.setCamDirection(new Vector3D(initialCamPosition, ORIGIN));
         janim.setDistance(DEFAULT_OBS_DISTANCE);
+        janim.setDirtyClearing(true);
         initializeCameraAngles();
 
-        drawAxes();
+        renderLoop = new RenderLoop(janim, this::renderScene, this::repaint);
 
         // Draw cube
         cube = new Cube(CUBE_SIZE);
@@ -82,15 +89,13 @@ public class App extends JFrame {
         gauss = new GaussSurface3D();
         currentShape = cube;
 
-        janim.setColor(Color.WHITE);
-        janim.drawShape(currentShape);
-
         // Panel for drawing
         JPanel panel = new JPanel() {
             @Override
             protected void paintComponent(Graphics g) {
                 super.paintComponent(g);
-                g.drawImage(janim.getBuffer(), 0, 0, null);
+                g.drawImage(renderLoop.getFrontBuffer(), 0, 0, null);
+                if (showStats) drawStats(g);
             }
         };
         panel.setOpaque(false);
@@ -124,7 +129,8 @@ public class App extends JFrame {
                 {"4", "Select curve"},
                 {"5", "Select surface"},
                 {"6", "Select squeezed cylinder"},
-                {"7", "Select Gaussian surface"}
+                {"7", "Select Gaussian surface"},
+                {"I", "Toggle render stats"}
         };
 
         for (String[] pair : actions) {
@@ -137,14 +143,15 @@ public class App extends JFrame {
         panel.add(helpPanel);
 
         setVisible(true);
+        renderLoop.start();
 
         // Camera control
-        bindKey(panel, "Q", () -> { angleX += delta; updateCameraPosition(); repaintScene(panel); });
-        bindKey(panel, "A", () -> { angleX -= delta; updateCameraPosition(); repaintScene(panel); });
-        bindKey(panel, "W", () -> { angleY += delta; updateCameraPosition(); repaintScene(panel); });
-        bindKey(panel, "S", () -> { angleY -= delta; updateCameraPosition(); repaintScene(panel); });
-        bindKey(panel, "E", () -> { angleZ += delta; updateCameraPosition(); repaintScene(panel); });
-        bindKey(panel, "D", () -> { angleZ -= delta; updateCameraPosition(); repaintScene(panel); });
+        bindKey(panel, "Q", () -> { angleX += delta; updateCameraPosition(); repaintScene(); });
+        bindKey(panel, "A", () -> { angleX -= delta; updateCameraPosition(); repaintScene(); });
+        bindKey(panel, "W", () -> { angleY += delta; updateCameraPosition(); repaintScene(); });
+        bindKey(panel, "S", () -> { angleY -= delta; updateCameraPosition(); repaintScene(); });
+        bindKey(panel, "E", () -> { angleZ += delta; updateCameraPosition(); repaintScene(); });
+        bindKey(panel, "D", () -> { angleZ -= delta; updateCameraPosition(); repaintScene(); });
         bindKey(panel, "R", () -> {
             angleX = 0;
             angleY = 0;
@@ -155,101 +162,101 @@ public class App extends JFrame {
             janim.setDistance(DEFAULT_OBS_DISTANCE);
             initializeCameraAngles();  // recalculate angles from original
             updateCameraPosition();
-            repaintScene(panel);
+            repaintScene();
         });
         // Auto-rotation toggle
         bindKey(panel, "P", () -> {
             if (autoRotate) {
                 autoRotateTimer.stop();
             } else {
-                autoRotateTimer = new Timer(30, e -> {
+                autoRotateTimer = renderLoop.timer(30, () -> {
                     angleY += delta / 5; // smooth slow orbit
                     updateCameraPosition();
-                    repaintScene(panel);
+                    repaintScene();
                 });
                 autoRotateTimer.start();
             }
             autoRotate = !autoRotate;
-            repaintScene(panel);
+            repaintScene();
         });
 
         // Cube control
-        bindKey(panel, "T", () -> { currentShape.rotate(delta, 'x');  repaintScene(panel); });
-        bindKey(panel, "G", () -> { currentShape.rotate(-delta, 'x'); repaintScene(panel); });
-        bindKey(panel, "Y", () -> { currentShape.rotate(delta, 'y');  repaintScene(panel); });
-        bindKey(panel, "H", () -> { currentShape.rotate(-delta, 'y'); repaintScene(panel); });
-        bindKey(panel, "U", () -> { currentShape.rotate(delta, 'z');  repaintScene(panel); });
-        bindKey(panel, "J", () -> { currentShape.rotate(-delta, 'z'); repaintScene(panel); });
-        bindKey(panel, "UP", () -> { currentShape.translate(0,0.5,0);  repaintScene(panel); });
-        bindKey(panel, "DOWN", () -> { currentShape.translate(0,-0.5,0); repaintScene(panel); });
-        bindKey(panel, "LEFT", () -> { currentShape.translate(-0.5,0,0);  repaintScene(panel); });
-        bindKey(panel, "RIGHT", () -> { currentShape.translate(0.5,0,0); repaintScene(panel); });
-        bindKey(panel, "Z", () -> { currentShape.translate(0,0,0.5);  repaintScene(panel); });
-        bindKey(panel, "X", () -> { currentShape.translate(0,0,-0.5); repaintScene(panel); });
-        bindKey(panel, "C", () -> { currentShape.resetTransformation(); repaintScene(panel); });
+        bindKey(panel, "T", () -> { currentShape.rotate(delta, 'x');  repaintScene(); });
+        bindKey(panel, "G", () -> { currentShape.rotate(-delta, 'x'); repaintScene(); });
+        bindKey(panel, "Y", () -> { currentShape.rotate(delta, 'y');  repaintScene(); });
+        bindKey(panel, "H", () -> { currentShape.rotate(-delta, 'y'); repaintScene(); });
+        bindKey(panel, "U", () -> { currentShape.rotate(delta, 'z');  repaintScene(); });
+        bindKey(panel, "J", () -> { currentShape.rotate(-delta, 'z'); repaintScene(); });
+        bindKey(panel, "UP", () -> { currentShape.translate(0,0.5,0);  repaintScene(); });
+        bindKey(panel, "DOWN", () -> { currentShape.translate(0,-0.5,0); repaintScene(); });
+        bindKey(panel, "LEFT", () -> { currentShape.translate(-0.5,0,0);  repaintScene(); });
+        bindKey(panel, "RIGHT", () -> { currentShape.translate(0.5,0,0); repaintScene(); });
+        bindKey(panel, "Z", () -> { currentShape.translate(0,0,0.5);  repaintScene(); });
+        bindKey(panel, "X", () -> { currentShape.translate(0,0,-0.5); repaintScene(); });
+        bindKey(panel, "C", () -> { currentShape.resetTransformation(); repaintScene(); });
         // Auto-rotation cube toggle
         bindKey(panel, "F", () -> {
             if (autoRotateShape) {
                 autoRotateShapeTimer.stop();
             } else {
                 AtomicInteger t = new AtomicInteger(0);
-                autoRotateShapeTimer = new Timer(30, e -> {
+                autoRotateShapeTimer = renderLoop.timer(30, () -> {
                     t.incrementAndGet();
                     currentShape.rotate(delta * Math.abs(Math.sin(t.get() / (40*Math.PI))), 'x');
                     currentShape.rotate(delta * Math.abs(Math.sin(t.get() / (30*Math.PI))), 'y');
                     currentShape.rotate(delta * Math.abs(Math.sin(t.get() / (50*Math.PI))), 'z');
-                    repaintScene(panel);
+                    repaintScene();
                 });
                 autoRotateShapeTimer.start();
             }
             autoRotateShape = !autoRotateShape;
-            repaintScene(panel);
+            repaintScene();
         });
 
-        bindKey(panel, "N", () -> { currentShape.scale(0.95, 0.95, 0.95);  repaintScene(panel); });
-        bindKey(panel, "M", () -> { currentShape.scale(1.05,1.05,1.05); repaintScene(panel); });
+        bindKey(panel, "N", () -> { currentShape.scale(0.95, 0.95, 0.95);  repaintScene(); });
+        bindKey(panel, "M", () -> { currentShape.scale(1.05,1.05,1.05); repaintScene(); });
 
         // Debug
         bindKey(panel, "L", () -> System.out.println(currentShape + ", d=" + janim.getDistance()));
 
         bindKey(panel, "1", () -> {
             janim.setDistance(janim.getDistance() + 0.5);
-            repaintScene(panel);
+            repaintScene();
         });
 
         bindKey(panel, "2", () -> {
             janim.setDistance(janim.getDistance() - 0.5);
-            repaintScene(panel);
+            repaintScene();
         });
 
         // Set cube as current shape
         bindKey(panel, "3", () -> {
             currentShape = cube;
-            repaintScene(panel);
+            repaintScene();
         });
 
         // Set curve as current shape
         bindKey(panel, "4", () -> {
             currentShape = curve;
-            repaintScene(panel);
+            repaintScene();
         });
 
         // Set surface as current shape
         bindKey(panel, "5", () -> {
             currentShape = surface;
-            repaintScene(panel);
+            repaintScene();
         });
 
         // Set squeezed cylinder as current shape
         bindKey(panel, "6", () -> {
             currentShape = cylinder;
-            repaintScene(panel);
+            repaintScene();
         });
 
         // Set gauss surface as current shape
         bindKey(panel, "7", () -> {
             currentShape = gauss;
-            repaintScene(panel);
+            repaintScene();
         });
 
         // Toggle projection
@@ -257,15 +264,22 @@ public class App extends JFrame {
             if (janim.getProjection() == Projection.PARALLEL) {
                 janim.setProjection(Projection.PERSPECTIVE);
                 updateCameraPosition();
-                repaintScene(panel);
+                repaintScene();
             }
             else if (janim.getProjection() == Projection.PERSPECTIVE) {
                 janim.setProjection(Projection.PARALLEL);
                 janim.setCamPosition(initialCamPosition);
                 updateCameraPosition();
-                repaintScene(panel);
+                repaintScene();
             }
         });
+
+        // Toggle render stats
+        bindKey(panel, "I", () -> {
+            showStats = !showStats;
+            janim.setStatsEnabled(showStats);
+            repaintScene();
+        });
     }
 
     private void initializeCameraAngles() {
@@ -297,7 +311,7 @@ public class App extends JFrame {
         comp.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(key), key);
         comp.getActionMap().put(key, new AbstractAction() {
             @Override public void actionPerformed(ActionEvent e) {
-                action.run();
+                renderLoop.invokeLater(action);
             }
         });
     }
@@ -311,10 +325,44 @@ public class App extends JFrame {
         janim.drawShape(currentShape);
     }
 
-    private void repaintScene(JPanel panel) {
+    private void renderScene() {
         janim.clear();
         redrawScene();
-        panel.repaint();
+    }
+
+    private void repaintScene() {
+        renderLoop.requestFrame();
+    }
+
+    // Rolling render stats in the top-left corner
+    private void drawStats(Graphics g) {
+        RenderStats stats = janim.getStats();
+        RenderStats.Summary summary = stats != null ? stats.getSummary() : null;
+        if (summary == null) return;
+
+        RenderStats.Frame last = summary.last();
+        String[] lines = {
+                String.format("frame %.2f ms avg, p50 %.2f, p95 %.2f, p99 %.2f (%d frames)",
+                        summary.averageMillis(), summary.p50Millis(), summary.p95Millis(),
+                        summary.p99Millis(), summary.frames()),
+                String.format("clear %.2f  tessellation %.2f  projection %.2f  lighting %.2f  raster %.2f ms",
+                        summary.averageStageMillis(RenderStats.Stage.CLEAR),
+                        summary.averageStageMillis(RenderStats.Stage.TESSELLATION),
+                        summary.averageStageMillis(RenderStats.Stage.PROJECTION),
+                        summary.averageStageMillis(RenderStats.Stage.LIGHTING),
+                        summary.averageStageMillis(RenderStats.Stage.RASTERIZATION)),
+                String.format("lines %d  faces %d  triangles %d  culled faces %d  culled shapes %d",
+                        last.lines(), last.faces(), last.triangles(), last.culledFaces(), last.culledShapes()),
+                String.format("pixels %d  z rejects %d", last.pixelsWritten(), last.depthRejects())
+        };
+
+        g.setFont(STATS_FONT);
+        g.setColor(new Color(0, 0, 0, 180));
+        g.fillRect(10, 10, 560, 16 * lines.length + 8);
+        g.setColor(Color.WHITE);
+        for (int i = 0; i < lines.length; ++i) {
+            g.drawString(lines[i], 16, 26 + 16 * i);
+        }
     }
 
     private void drawAxes() {
@@ -3,6 +3,7 @@ import hanoi.Hanoi4Disk;
 import rubik.Rubik3x3x3;
 import geometry.Vector3D;
 import graphics.Janim3D;
+import graphics.RenderLoop;
 
 import javax.swing.AbstractAction;
 import javax.swing.JComponent;
@@ -49,6 +50,7 @@ public class HanoiApp extends JFrame {
 
     // Animation objects
     private final Janim3D janim;
+    private final RenderLoop renderLoop;
     private final Hanoi4Disk hanoi;
 
     // Frame parameters
@@ -65,6 +67,8 @@ public class HanoiApp extends JFrame {
         janim.setLightSource(new Point3D(0, 0, -30));
         janim.setScale(8);
         janim.setAmbientLight(0.5);
+        janim.setTiledRasterization(true);
+        janim.setBackFaceCulling(true);
 
         janim.setCamPosition(initialCamPosition);
         janim.setCamDirection(new Vector3D(initialCamPosition, ORIGIN));
@@ -72,7 +76,8 @@ public class HanoiApp extends JFrame {
         initializeCameraAngles();
 
         hanoi = new Hanoi4Disk();
-        hanoi.draw(janim);
+
+        renderLoop = new RenderLoop(janim, this::renderScene, this::repaint);
 
         pegs[0] = new ArrayList<>();
         pegs[1] = new ArrayList<>();
@@ -88,7 +93,7 @@ public class HanoiApp extends JFrame {
             @Override
             protected void paintComponent(Graphics g) {
                 super.paintComponent(g);
-                g.drawImage(janim.getBuffer(), 0, 0, null);
+                g.drawImage(renderLoop.getFrontBuffer(), 0, 0, null);
             }
         };
 
@@ -115,37 +120,38 @@ public class HanoiApp extends JFrame {
         panel.setLayout(null); // needed for absolute positioning
         panel.add(helpPanel);
         setVisible(true);
+        renderLoop.start();
 
         bindKey(panel, "1", () -> {
             if (isMoving) return;
             if (pegSource == -1) {
-                liftDisk(panel, 0);
+                liftDisk(0);
             } else if (pegSource == 0) {
-                releaseDisk(panel, 0);
+                releaseDisk(0);
             } else {
-                moveSourceToPeg(panel, 0);
+                moveSourceToPeg(0);
             }
         });
 
         bindKey(panel, "2", () -> {
             if (isMoving) return;
             if (pegSource == -1) {
-                liftDisk(panel, 1);
+                liftDisk(1);
             } else if (pegSource == 1) {
-                releaseDisk(panel, 1);
+                releaseDisk(1);
             } else {
-                moveSourceToPeg(panel, 1);
+                moveSourceToPeg(1);
             }
         });
 
         bindKey(panel, "3", () -> {
             if (isMoving) return;
             if (pegSource == -1) {
-                liftDisk(panel, 2);
+                liftDisk(2);
             } else if (pegSource == 2) {
-                releaseDisk(panel, 2);
+                releaseDisk(2);
             } else {
-                moveSourceToPeg(panel, 2);
+                moveSourceToPeg(2);
             }
         });
     }
@@ -165,7 +171,7 @@ public class HanoiApp extends JFrame {
         comp.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(key), key);
         comp.getActionMap().put(key, new AbstractAction() {
             @Override public void actionPerformed(ActionEvent e) {
-                action.run();
+                renderLoop.invokeLater(action);
             }
         });
     }
@@ -174,20 +180,23 @@ public class HanoiApp extends JFrame {
         hanoi.draw(janim);
     }
 
-    private void repaintScene(JPanel panel) {
+    private void renderScene() {
         janim.clear();
         janim.clearZBuffer();
         redrawScene();
-        panel.repaint();
     }
 
-    private void liftDisk(JPanel panel, int pegIndex) {
+    private void repaintScene() {
+        renderLoop.requestFrame();
+    }
+
+    private void liftDisk(int pegIndex) {
         if (isMoving) return;
         else {
             if (pegs[pegIndex].isEmpty()) return;
             auxY = -7.5 + 5*pegs[pegIndex].size();
 
-            moveTimer = new Timer(33, e -> {
+            moveTimer = renderLoop.timer(33, () -> {
                 if (auxY >= 32.5) {
                     moveTimer.stop();
                     isMoving = false;
@@ -196,17 +205,17 @@ public class HanoiApp extends JFrame {
 
                 auxY += delta;
                 hanoi.moveDisk(pegs[pegIndex].get(pegs[pegIndex].size()-1), 0, delta, 0);
-                repaintScene(panel);
+                repaintScene();
             });
 
             moveTimer.start();
         }
 
         isMoving = true;
-        repaintScene(panel);
+        repaintScene();
     }
 
-    private void releaseDisk(JPanel panel, int pegIndex) {
+    private void releaseDisk(int pegIndex) {
         if (isMoving) return;
         else {
 
@@ -214,7 +223,7 @@ public class HanoiApp extends JFrame {
             auxY = 32.5;
             double targetY = -7.5 + 5*(pegs[pegIndex].size());
 
-            moveTimer = new Timer(33, e -> {
+            moveTimer = renderLoop.timer(33, () -> {
                 if (auxY <= targetY) {
                     moveTimer.stop();
                     isMoving = false;
@@ -223,17 +232,17 @@ public class HanoiApp extends JFrame {
 
                 auxY -= delta;
                 hanoi.moveDisk(pegs[pegIndex].get(pegs[pegIndex].size()-1), 0, -delta, 0);
-                repaintScene(panel);
+                repaintScene();
             });
 
             moveTimer.start();
         }
 
         isMoving = true;
-        repaintScene(panel);
+        repaintScene();
     }
 
-    private void moveSourceToPeg(JPanel panel, int pegIndex) {
+    private void moveSourceToPeg(int pegIndex) {
         if (isMoving) return;
         else {
             if (!pegs[pegIndex].isEmpty() &&
@@ -244,7 +253,7 @@ public class HanoiApp extends JFrame {
             auxX = 50 - 50*pegSource;
             double targetX = 50 - 50*pegIndex;
 
-            moveTimer = new Timer(33, e -> {
+            moveTimer = renderLoop.timer(33, () -> {
                 if ((sign > 0 && auxX >= targetX) || (sign < 0 && auxX <= targetX)) {
                     moveTimer.stop();
                     // Testing...
@@ -253,12 +262,12 @@ public class HanoiApp extends JFrame {
                     double targetY = -7.5 + 5*(pegs[pegIndex].size()+1);
                     auxY = 32.5;
 
-                    moveTimer = new Timer(33, e2 -> {
+                    moveTimer = renderLoop.timer(33, () -> {
                         if (auxY <= targetY) {
                             moveTimer.stop();
                             // Testing
                             hanoi.moveDisk(pegs[pegSource].get(pegs[pegSource].size()-1), 0, -delta, 0);
-                            repaintScene(panel);
+                            repaintScene();
 
                             int disk = pegs[pegSource].get(pegs[pegSource].size()-1);
                             pegs[pegIndex].add(disk);
@@ -272,7 +281,7 @@ public class HanoiApp extends JFrame {
 
                         auxY -= delta;
                         hanoi.moveDisk(pegs[pegSource].get(pegs[pegSource].size()-1), 0, -delta, 0);
-                        repaintScene(panel);
+                        repaintScene();
                     });
 
                     moveTimer.start();
@@ -280,14 +289,14 @@ public class HanoiApp extends JFrame {
 
                 auxX += (sign*delta);
                 hanoi.moveDisk(pegs[pegSource].get(pegs[pegSource].size()-1), (sign*delta), 0, 0);
-                repaintScene(panel);
+                repaintScene();
             });
 
             moveTimer.start();
         }
 
         isMoving = true;
-        repaintScene(panel);
+        repaintScene();
     }
 
     public static void main(String[] args) {
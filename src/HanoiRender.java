@@ -0,0 +1,170 @@
+import geometry.Point3D;
+import geometry.Vector3D;
+import graphics.AviWriter;
+import graphics.BatchRenderer;
+import graphics.FrameSink;
+import graphics.FrameSnapshot;
+import graphics.Janim3D;
+import graphics.PngSequenceWriter;
+import graphics.SnapshotTimeline;
+import hanoi.Hanoi4Disk;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Headless render of the full 4 disk Hanoi solution, frames rendered in parallel on every core the heap allows.
+// Usage: HanoiRender <output.avi | output directory> [threads] [fps]
+public class HanoiRender implements SnapshotTimeline {
+
+    // Same scene setup as HanoiApp
+    private static final int WIDTH = 1400;
+    private static final int HEIGHT = 1000;
+    private static final double DEFAULT_OBS_DISTANCE = -50;
+    private static final Point3D CAM_POSITION = new Point3D(0, 20, -40);
+    private static final Point3D ORIGIN = new Point3D(0, 0, 0);
+
+    // Disks travel SPEED units per frame, over the pegs at TOP_Y
+    private static final double SPEED = 3.5;
+    private static final double TOP_Y = 32.5;
+    private static final double ORBIT = 0.25;
+
+    private final Hanoi4Disk hanoi = new Hanoi4Disk();
+    private final List<List<Integer>> pegs = new ArrayList<>();
+    private final List<int[]> moves = new ArrayList<>(); // {disk, from peg, to peg}
+
+    // Current move and the waypoints its disk still has to reach
+    private int move = -1;
+    private final List<double[]> path = new ArrayList<>();
+    private double x, y;
+
+    public HanoiRender() {
+        for (int i = 0; i < 3; ++i) {
+            pegs.add(new ArrayList<>());
+        }
+        for (int disk = 3; disk >= 0; --disk) {
+            pegs.get(0).add(disk);
+        }
+        solve(4, 0, 2, 1);
+    }
+
+    private void solve(int n, int from, int to, int via) {
+        if (n == 0) return;
+        solve(n - 1, from, via, to);
+        moves.add(new int[] {n - 1, from, to});
+        solve(n - 1, via, to, from);
+    }
+
+    private static double pegX(int peg) {
+        return 50 - 50 * peg;
+    }
+
+    private static double levelY(int level) {
+        return -7.5 + 5 * level;
+    }
+
+    // Move the current disk SPEED units along its path, false once every move is done
+    private boolean advance() {
+        if (path.isEmpty()) {
+            if (move + 1 >= moves.size()) return false;
+            int[] m = moves.get(++move);
+            List<Integer> from = pegs.get(m[1]), to = pegs.get(m[2]);
+            from.remove(from.size() - 1);
+
+            x = pegX(m[1]);
+            y = levelY(from.size());
+            path.add(new double[] {pegX(m[1]), TOP_Y});
+            path.add(new double[] {pegX(m[2]), TOP_Y});
+            path.add(new double[] {pegX(m[2]), levelY(to.size())});
+            to.add(m[0]);
+        }
+
+        int disk = moves.get(move)[0];
+        double budget = SPEED;
+        while (budget > 0 && !path.isEmpty()) {
+            double[] target = path.get(0);
+            double dx = target[0] - x, dy = target[1] - y;
+            double length = Math.sqrt(dx * dx + dy * dy);
+            double t = length <= budget ? 1 : budget / length;
+
+            hanoi.moveDisk(disk, t * dx, t * dy, 0);
+            x += t * dx;
+            y += t * dy;
+            budget -= t * length;
+            if (t == 1) path.remove(0);
+        }
+        return true;
+    }
+
+    public int frameCount() {
+        HanoiRender dryRun = new HanoiRender();
+        int frames = 1;
+        while (dryRun.advance()) {
+            ++frames;
+        }
+        return frames;
+    }
+
+    @Override
+    public FrameSnapshot snapshot(int frame, double time) {
+        if (frame > 0) advance();
+
+        FrameSnapshot snapshot = new FrameSnapshot();
+
+        // Slow swing of the camera around the pegs
+        double angle = ORBIT * Math.sin(2 * Math.PI * time / 20);
+        Point3D position = new Point3D(
+                CAM_POSITION.x() * Math.cos(angle) + CAM_POSITION.z() * Math.sin(angle),
+                CAM_POSITION.y(),
+                -CAM_POSITION.x() * Math.sin(angle) + CAM_POSITION.z() * Math.cos(angle));
+        snapshot.setCamera(position, new Vector3D(position, ORIGIN), DEFAULT_OBS_DISTANCE);
+
+        hanoi.snapshot(snapshot);
+        return snapshot;
+    }
+
+    private static Janim3D createJanim() {
+        Janim3D janim = new Janim3D(WIDTH, HEIGHT);
+        janim.setLightSource(new Point3D(0, 0, -30));
+        janim.setScale(8);
+        janim.setAmbientLight(0.5);
+        janim.setBackFaceCulling(true);
+        janim.setMultisampling(true);
+        janim.setCamPosition(CAM_POSITION);
+        janim.setCamDirection(new Vector3D(CAM_POSITION, ORIGIN));
+        janim.setDistance(DEFAULT_OBS_DISTANCE);
+        return janim;
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+
+        // Every thread holds its own multisampled buffers and two frames in flight
+        long threadBytes = BatchRenderer.workerBytes(WIDTH, HEIGHT, Janim3D.bufferBytes(WIDTH, HEIGHT, true));
+        if (args.length < 1) {
+            System.err.println("Usage: HanoiRender <output.avi | output directory> [threads] [fps]");
+            System.err.printf("Each thread needs about %d MB of heap, by default as many threads as cores that fit "
+                    + "in -Xmx%n", threadBytes >> 20);
+            System.exit(1);
+        }
+        File output = new File(args[0]);
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : BatchRenderer.defaultThreads(threadBytes);
+        int fps = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        HanoiRender timeline = new HanoiRender();
+        int frames = timeline.frameCount();
+        BatchRenderer renderer = new BatchRenderer(HanoiRender::createJanim, fps, threads);
+
+        long start = System.nanoTime();
+        try (FrameSink sink = args[0].toLowerCase().endsWith(".avi") ?
+                new AviWriter(output, WIDTH, HEIGHT, fps, AviWriter.Codec.MJPEG, 0.9f) :
+                new PngSequenceWriter(output, "frame")) {
+            renderer.render(timeline, frames, sink);
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d frames on %d threads in %.2f s (%.1f fps) -> %s%n",
+                frames, threads, seconds, frames / seconds, output);
+    }
+}
@@ -2,6 +2,7 @@ import geometry.Point3D;
 import rubik.Rubik3x3x3;
 import geometry.Vector3D;
 import graphics.Janim3D;
+import graphics.RenderLoop;
 
 import javax.swing.AbstractAction;
 import javax.swing.JComponent;
@@ -40,11 +41,12 @@ public class RubikApp extends JFrame {
     private Timer autoRotateShapeTimer;
     private boolean autoRotateShape = false;
     private Timer moveFaceTimer;
-    private boolean moveFace = false;
+    private volatile boolean moveFace = false;
     double angleFace = 0;
 
     // Animation objects
     private final Janim3D janim;
+    private final RenderLoop renderLoop;
     private final Rubik3x3x3 cube;
     private static final double CUBELET_SIZE = 10;
     private static final double CUBELET_SPACE = 10;
@@ -60,6 +62,7 @@ public class RubikApp extends JFrame {
         setLocationRelativeTo(null);
 
         janim = new Janim3D(WIDTH, HEIGHT);
+        janim.setBackFaceCulling(true);
         janim.setCamPosition(initialCamPosition);
         janim.setCamDirection(new Vector3D(initialCamPosition, ORIGIN));
         janim.setDistance(DEFAULT_OBS_DISTANCE);
@@ -67,14 +70,15 @@ public class RubikApp extends JFrame {
 
         // Draw cube
         cube = new Rubik3x3x3(CUBELET_SPACE, CUBELET_SIZE);
-        cube.draw(janim);
+
+        renderLoop = new RenderLoop(janim, this::renderScene, this::repaint);
 
         // Panel for drawing
         JPanel panel = new JPanel() {
             @Override
             protected void paintComponent(Graphics g) {
                 super.paintComponent(g);
-                g.drawImage(janim.getBuffer(), 0, 0, null);
+                g.drawImage(renderLoop.getFrontBuffer(), 0, 0, null);
             }
         };
 
@@ -110,13 +114,14 @@ public class RubikApp extends JFrame {
         panel.setLayout(null); // needed for absolute positioning
         panel.add(helpPanel);
         setVisible(true);
+        renderLoop.start();
 
-        bindKey(panel, "UP", () -> { cube.rotate(delta, 'x');  repaintScene(panel); });
-        bindKey(panel, "DOWN", () -> { cube.rotate(-delta, 'x'); repaintScene(panel); });
-        bindKey(panel, "LEFT", () -> { cube.rotate(delta, 'y');  repaintScene(panel); });
-        bindKey(panel, "RIGHT", () -> { cube.rotate(-delta, 'y'); repaintScene(panel); });
-        bindKey(panel, "Z", () -> { cube.rotate(delta, 'z');  repaintScene(panel); });
-        bindKey(panel, "X", () -> { cube.rotate(-delta, 'z'); repaintScene(panel); });
+        bindKey(panel, "UP", () -> { cube.rotate(delta, 'x');  repaintScene(); });
+        bindKey(panel, "DOWN", () -> { cube.rotate(-delta, 'x'); repaintScene(); });
+        bindKey(panel, "LEFT", () -> { cube.rotate(delta, 'y');  repaintScene(); });
+        bindKey(panel, "RIGHT", () -> { cube.rotate(-delta, 'y'); repaintScene(); });
+        bindKey(panel, "Z", () -> { cube.rotate(delta, 'z');  repaintScene(); });
+        bindKey(panel, "X", () -> { cube.rotate(-delta, 'z'); repaintScene(); });
 
         // Auto-rotation cube toggle
         bindKey(panel, "P", () -> {
@@ -124,7 +129,7 @@ public class RubikApp extends JFrame {
                 autoRotateShapeTimer.stop();
             } else {
                 AtomicInteger t = new AtomicInteger(0);
-                autoRotateShapeTimer = new Timer(33, e -> {
+                autoRotateShapeTimer = renderLoop.timer(33, () -> {
                     t.incrementAndGet();
                     double time = t.get() / 60.0; // Slow and continuous
                     double angleX = delta * Math.sin(time / 3.0); // Slower variation
@@ -134,44 +139,44 @@ public class RubikApp extends JFrame {
                     cube.rotate(angleX, 'x');
                     cube.rotate(angleY, 'y');
                     cube.rotate(angleZ, 'z');
-                    repaintScene(panel);
+                    repaintScene();
                 });
                 autoRotateShapeTimer.start();
             }
             autoRotateShape = !autoRotateShape;
-            repaintScene(panel);
+            repaintScene();
         });
 
         bindKey(panel, "R", () -> {
-            moveFace(panel, 0, Math.PI/50);
+            moveFace(0, Math.PI/50);
         });
 
         bindKey(panel, "O", () -> {
-            moveFace(panel, 1, -Math.PI/50);
+            moveFace(1, -Math.PI/50);
         });
 
         bindKey(panel, "W", () -> {
-            moveFace(panel, 2, Math.PI/50);
+            moveFace(2, Math.PI/50);
         });
 
         bindKey(panel, "Y", () -> {
-            moveFace(panel, 3, -Math.PI/50);
+            moveFace(3, -Math.PI/50);
         });
 
         bindKey(panel, "B", () -> {
-            moveFace(panel, 4, Math.PI/50);
+            moveFace(4, Math.PI/50);
         });
 
         bindKey(panel, "G", () -> {
-            moveFace(panel, 5, -Math.PI/50);
+            moveFace(5, -Math.PI/50);
         });
 
         bindKey(panel, "S", () -> {
-            scrambleCube(panel);
+            scrambleCube();
         });
     }
 
-    private void scrambleCube(JPanel panel) {
+    private void scrambleCube() {
         new Thread(() -> {
             Random random = new Random();
             int movesToDo = 20;
@@ -195,16 +200,16 @@ public class RubikApp extends JFrame {
                     } catch (InterruptedException ignored) {}
                 }
 
-                // Schedule the move on the Event Dispatch Thread
-                SwingUtilities.invokeLater(() -> moveFace(panel, face, step));
+                // Schedule the move on the render thread
+                renderLoop.invokeLater(() -> moveFace(face, step));
             }
         }).start();
     }
 
-    private void moveFace(JPanel panel, int face, double step) {
+    private void moveFace(int face, double step) {
         if (moveFace) return;
         else {
-            moveFaceTimer = new Timer(33, e -> {
+            moveFaceTimer = renderLoop.timer(33, () -> {
                 angleFace += Math.PI/50;
                 if (angleFace >= Math.PI/2) {
                     angleFace = 0; // Clamp to exact value
@@ -214,14 +219,14 @@ public class RubikApp extends JFrame {
                 }
 
                 cube.moveFace(face, step);
-                repaintScene(panel);
+                repaintScene();
             });
 
             moveFaceTimer.start();
         }
 
         moveFace = true;
-        repaintScene(panel);
+        repaintScene();
     }
 
     private void initializeCameraAngles() {
@@ -239,7 +244,7 @@ public class RubikApp extends JFrame {
         comp.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(key), key);
         comp.getActionMap().put(key, new AbstractAction() {
             @Override public void actionPerformed(ActionEvent e) {
-                action.run();
+                renderLoop.invokeLater(action);
             }
         });
     }
@@ -248,11 +253,14 @@ public class RubikApp extends JFrame {
         cube.draw(janim);
     }
 
-    private void repaintScene(JPanel panel) {
+    private void renderScene() {
         janim.clear();
         janim.clearZBuffer();
         redrawScene();
-        panel.repaint();
+    }
+
+    private void repaintScene() {
+        renderLoop.requestFrame();
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,90 @@
+import geometry.Point3D;
+import geometry.Vector3D;
+import graphics.AviWriter;
+import graphics.FrameSink;
+import graphics.Janim3D;
+import graphics.OfflineRenderer;
+import graphics.PngSequenceWriter;
+import graphics.Timeline;
+import rubik.Rubik3x3x3;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+// Headless render of a slowly turning Rubik cube doing random face moves, no display needed.
+// Usage: RubikRender <output.avi | output directory> [frames] [fps] [mjpeg | raw]
+public class RubikRender implements Timeline {
+
+    // Same scene setup as RubikApp
+    private static final int WIDTH = 1000;
+    private static final int HEIGHT = 1000;
+    private static final double CUBELET_SIZE = 10;
+    private static final double CUBELET_SPACE = 10;
+    private static final double DEFAULT_OBS_DISTANCE = -50;
+    private static final Point3D CAM_POSITION = new Point3D(0, 0, 40);
+    private static final Point3D ORIGIN = new Point3D(0, 0, 0);
+
+    // A quarter turn takes MOVE_FRAMES frames
+    private static final int MOVE_FRAMES = 25;
+    private static final double MOVE_STEP = Math.PI / 2 / MOVE_FRAMES;
+    private static final double SPIN = Math.PI / 180;
+
+    private final Rubik3x3x3 cube = new Rubik3x3x3(CUBELET_SPACE, CUBELET_SIZE);
+    private final Random random = new Random(42); // Fixed seed, every run renders the same video
+    private int face;
+    private double step;
+
+    @Override
+    public void renderFrame(Janim3D janim, int frame, double time) {
+        // Spin the whole cube, as RubikApp auto rotation
+        cube.rotate(SPIN * Math.sin(time / 3.0), 'x');
+        cube.rotate(SPIN * Math.sin(time / 4.0), 'y');
+        cube.rotate(SPIN * Math.sin(time / 5.0), 'z');
+
+        // Random face moves, back to back
+        int moveFrame = frame % MOVE_FRAMES;
+        if (moveFrame == 0) {
+            face = random.nextInt(6);
+            step = (face % 2 == 0) ? MOVE_STEP : -MOVE_STEP;
+        }
+        cube.moveFace(face, step);
+        if (moveFrame == MOVE_FRAMES - 1) {
+            cube.finishMovement(face);
+        }
+
+        cube.draw(janim);
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+
+        if (args.length < 1) {
+            System.err.println("Usage: RubikRender <output.avi | output directory> [frames] [fps] [mjpeg | raw]");
+            System.exit(1);
+        }
+        File output = new File(args[0]);
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        int fps = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        AviWriter.Codec codec = args.length > 3 && args[3].equalsIgnoreCase("raw") ?
+                AviWriter.Codec.RAW : AviWriter.Codec.MJPEG;
+
+        Janim3D janim = new Janim3D(WIDTH, HEIGHT);
+        janim.setBackFaceCulling(true);
+        janim.setMultisampling(true);
+        janim.setCamPosition(CAM_POSITION);
+        janim.setCamDirection(new Vector3D(CAM_POSITION, ORIGIN));
+        janim.setDistance(DEFAULT_OBS_DISTANCE);
+
+        OfflineRenderer renderer = new OfflineRenderer(janim, fps);
+        long start = System.nanoTime();
+        try (FrameSink sink = args[0].toLowerCase().endsWith(".avi") ?
+                new AviWriter(output, WIDTH, HEIGHT, fps, codec, 0.9f) :
+                new PngSequenceWriter(output, "frame")) {
+            renderer.render(new RubikRender(), frames, sink);
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d frames in %.2f s (%.1f fps) -> %s%n", frames, seconds, frames / seconds, output);
+    }
+}
@@ -0,0 +1,187 @@
+package geometry;
+
+// Immutable local space geometry: packed xyz vertices plus edge (pairs) and quad face (fours) indices.
+// The arrays are shared, callers must not modify them.
+public class Mesh {
+    private final double[] vertices;
+    private final int[] edges;
+    private final int[] faces;
+
+    // Float structure of arrays copy of the vertices, one array per coordinate
+    public record FloatVertices(float[] xs, float[] ys, float[] zs) {}
+
+    // Built on first use, threads racing here build equal copies
+    private volatile FloatVertices floatVertices;
+
+    // Size of an inset face relative to its face, scaled about the face center
+    public static final double INSET_SCALE = 0.85;
+
+    // Every quad face shrunk towards its center, 4 packed xyz corners per face in face order, with the unit
+    // normal (b - a) x (d - a) of each face, 3 per face
+    public record InsetFaces(double[] vertices, double[] normals) {}
+
+    private volatile InsetFaces insetFaces;
+
+    // Local bounding sphere around the center of the bounding box
+    private final double[] boundsCenter = new double[3];
+    private final double boundsRadius;
+
+    public Mesh(double[] vertices, int[] edges, int[] faces) {
+        this.vertices = vertices;
+        this.edges = edges;
+        this.faces = faces;
+
+        double[] min = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+        double[] max = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (int i = 0; i < vertices.length; ++i) {
+            min[i % 3] = Math.min(min[i % 3], vertices[i]);
+            max[i % 3] = Math.max(max[i % 3], vertices[i]);
+        }
+        for (int k = 0; k < 3 && vertices.length > 0; ++k) {
+            boundsCenter[k] = (min[k] + max[k]) / 2;
+        }
+
+        double r2 = 0;
+        for (int i = 0; i < vertices.length; i += 3) {
+            double dx = vertices[i] - boundsCenter[0];
+            double dy = vertices[i + 1] - boundsCenter[1];
+            double dz = vertices[i + 2] - boundsCenter[2];
+            r2 = Math.max(r2, dx*dx + dy*dy + dz*dz);
+        }
+        boundsRadius = Math.sqrt(r2);
+    }
+
+    public double[] getVertices() {
+        return vertices;
+    }
+
+    public FloatVertices getFloatVertices() {
+        FloatVertices copy = floatVertices;
+        if (copy == null) {
+            int count = vertexCount();
+            float[] xs = new float[count], ys = new float[count], zs = new float[count];
+            for (int i = 0; i < count; ++i) {
+                xs[i] = (float) vertices[3*i];
+                ys[i] = (float) vertices[3*i + 1];
+                zs[i] = (float) vertices[3*i + 2];
+            }
+            floatVertices = copy = new FloatVertices(xs, ys, zs);
+        }
+        return copy;
+    }
+
+    // Built on first use like getFloatVertices()
+    public InsetFaces getInsetFaces() {
+        InsetFaces inset = insetFaces;
+        if (inset == null) {
+            int count = faceCount();
+            double[] corners = new double[12 * count];
+            double[] normals = new double[3 * count];
+            for (int f = 0; f < count; ++f) {
+                double cx = 0, cy = 0, cz = 0;
+                for (int i = 0; i < 4; ++i) {
+                    int v = 3 * faces[4*f + i];
+                    cx += vertices[v];
+                    cy += vertices[v + 1];
+                    cz += vertices[v + 2];
+                }
+                cx /= 4;
+                cy /= 4;
+                cz /= 4;
+                for (int i = 0; i < 4; ++i) {
+                    int v = 3 * faces[4*f + i], o = 12*f + 3*i;
+                    corners[o] = cx + INSET_SCALE * (vertices[v] - cx);
+                    corners[o + 1] = cy + INSET_SCALE * (vertices[v + 1] - cy);
+                    corners[o + 2] = cz + INSET_SCALE * (vertices[v + 2] - cz);
+                }
+
+                int a = 3 * faces[4*f], b = 3 * faces[4*f + 1], d = 3 * faces[4*f + 3];
+                double ux = vertices[b] - vertices[a], uy = vertices[b + 1] - vertices[a + 1];
+                double uz = vertices[b + 2] - vertices[a + 2];
+                double vx = vertices[d] - vertices[a], vy = vertices[d + 1] - vertices[a + 1];
+                double vz = vertices[d + 2] - vertices[a + 2];
+                double nx = uy*vz - uz*vy, ny = uz*vx - ux*vz, nz = ux*vy - uy*vx;
+                double length = Math.sqrt(nx*nx + ny*ny + nz*nz);
+                if (length != 0) {
+                    nx /= length;
+                    ny /= length;
+                    nz /= length;
+                }
+                normals[3*f] = nx;
+                normals[3*f + 1] = ny;
+                normals[3*f + 2] = nz;
+            }
+            insetFaces = inset = new InsetFaces(corners, normals);
+        }
+        return inset;
+    }
+
+    public int[] getEdges() {
+        return edges;
+    }
+
+    public int[] getFaces() {
+        return faces;
+    }
+
+    public double[] getBoundsCenter() {
+        return boundsCenter;
+    }
+
+    public double getBoundsRadius() {
+        return boundsRadius;
+    }
+
+    public int vertexCount() {
+        return vertices.length / 3;
+    }
+
+    public int edgeCount() {
+        return edges.length / 2;
+    }
+
+    public int faceCount() {
+        return faces.length / 4;
+    }
+
+    // Edges of a rows x cols vertex grid stored row by row, optionally closing rows and columns
+    public static int[] gridEdges(int rows, int cols, boolean wrapRows, boolean wrapCols) {
+        int horizontal = rows * (wrapCols ? cols : cols - 1);
+        int vertical = cols * (wrapRows ? rows : rows - 1);
+        int[] edges = new int[2 * (horizontal + vertical)];
+
+        int k = 0;
+        for (int i = 0; i < rows; ++i) {
+            for (int j = 0; j < cols; ++j) {
+                if (j + 1 < cols || wrapCols) {
+                    edges[k++] = i * cols + j;
+                    edges[k++] = i * cols + (j + 1) % cols;
+                }
+                if (i + 1 < rows || wrapRows) {
+                    edges[k++] = i * cols + j;
+                    edges[k++] = ((i + 1) % rows) * cols + j;
+                }
+            }
+        }
+        return edges;
+    }
+
+    // Quads {(i, j), (i, j+1), (i+1, j+1), (i+1, j)} of a rows x cols vertex grid stored row by row
+    public static int[] gridFaces(int rows, int cols, boolean wrapRows, boolean wrapCols) {
+        int faceRows = wrapRows ? rows : rows - 1;
+        int faceCols = wrapCols ? cols : cols - 1;
+        int[] faces = new int[4 * faceRows * faceCols];
+
+        int k = 0;
+        for (int i = 0; i < faceRows; ++i) {
+            for (int j = 0; j < faceCols; ++j) {
+                int next = (i + 1) % rows;
+                faces[k++] = i * cols + j;
+                faces[k++] = i * cols + (j + 1) % cols;
+                faces[k++] = next * cols + (j + 1) % cols;
+                faces[k++] = next * cols + j;
+            }
+        }
+        return faces;
+    }
+}
@@ -1,82 +1,163 @@
 package geometry;
 
-import math.Matrix;
-import math.Transform;
+import math.Mat4;
+
+import java.awt.Color;
+import java.util.ArrayList;
 import java.util.List;
 
 public abstract class Shape {
-    private double[][] transformation;
-    private double[][] initialTransform = new double[][] {
-            {1, 0, 0, 0},
-            {0, 1, 0, 0},
-            {0, 0, 1, 0},
-            {0, 0, 0, 1}
-    };
+    private final Mat4 transformation = new Mat4();
+    private final Mat4 initialTransform = new Mat4();
+
+    // Local space tessellation, rebuilt only after invalidateMesh()
+    private Mesh mesh;
+    private double[] transformed;
+
+    private boolean twoSided = false;
 
     public Shape() {
         resetTransformation();
     }
 
-    public void setInitialTransform(double[][] transform) {
-        initialTransform = transform;
+    public void setInitialTransform(Mat4 transform) {
+        initialTransform.set(transform);
     }
 
     public void resetTransformation() {
-        transformation = initialTransform.clone();
+        transformation.set(initialTransform);
     }
 
-    public double[][] getTransformation() {
+    public Mat4 getTransformation() {
         return transformation;
     }
-    public void setTransformation(double[][] transformation) {
-        this.transformation = transformation;
+    public void setTransformation(Mat4 transformation) {
+        this.transformation.set(transformation);
     }
 
-    public  abstract List<Line3D> getGridLines();
+    // Build the shape in local space, called once and again after invalidateMesh()
+    protected abstract Mesh tessellate();
 
-    public void rotate(double t, char axis) {
-        double[][] rotationOnly = {
-                { transformation[0][0], transformation[0][1], transformation[0][2], 0 },
-                { transformation[1][0], transformation[1][1], transformation[1][2], 0 },
-                { transformation[2][0], transformation[2][1], transformation[2][2], 0 },
-                { 0, 0, 0, 1 }
-        };
+    protected void invalidateMesh() {
+        mesh = null;
+    }
+
+    public Mesh getMesh() {
+        if (mesh == null) {
+            mesh = tessellate();
+        }
+        return mesh;
+    }
 
-        double[][] rotation = switch (axis) {
-            case 'x' -> Matrix.rotationXMatrix(t);
-            case 'y' -> Matrix.rotationYMatrix(t);
-            case 'z' -> Matrix.rotationZMatrix(t);
-            default -> throw new IllegalArgumentException("Invalid axis");
-        };
+    // Mesh vertices under the current transformation, packed xyz in a buffer reused between calls
+    public double[] getTransformedVertices() {
+        Mesh mesh = getMesh();
+        int count = mesh.vertexCount();
+        if (transformed == null || transformed.length != 3 * count) {
+            transformed = new double[3 * count];
+        }
+        transformation.transformPoints(mesh.getVertices(), transformed, count);
+        return transformed;
+    }
+
+    // Write the world space center of a sphere enclosing the shape into center and return its radius
+    public double getBoundingSphere(double[] center) {
+        return getBoundingSphere(transformation, center);
+    }
+
+    // Same as getBoundingSphere(center) with transformation in place of the current one
+    public double getBoundingSphere(Mat4 transformation, double[] center) {
+        Mesh mesh = getMesh();
+        double[] c = mesh.getBoundsCenter();
+        transformation.transformPoint(c[0], c[1], c[2], center);
 
-        double[][] temp = Matrix.mul(rotation, rotationOnly);
-        assert temp != null;
+        // Largest stretch of the linear part L, bounded by the largest row sum of |L^T L| (exact for rotations
+        // combined with axis scales, whose columns are orthogonal)
+        double scale = 0;
+        for (int i = 0; i < 3; ++i) {
+            double sum = 0;
+            for (int j = 0; j < 3; ++j) {
+                double dot = 0;
+                for (int k = 0; k < 3; ++k) {
+                    dot += transformation.get(k, i) * transformation.get(k, j);
+                }
+                sum += Math.abs(dot);
+            }
+            scale = Math.max(scale, sum);
+        }
+        return mesh.getBoundsRadius() * Math.sqrt(scale);
+    }
+
+    public boolean isTwoSided() {
+        return twoSided;
+    }
 
-        // Copy translation
-        temp[0][3] = transformation[0][3];
-        temp[1][3] = transformation[1][3];
-        temp[2][3] = transformation[2][3];
+    // Render faces seen from behind too (e.g. open surfaces), they are never back-face culled
+    public void setTwoSided(boolean twoSided) {
+        this.twoSided = twoSided;
+    }
+
+    public Color getFaceColor(int face) {
+        return Color.WHITE;
+    }
+
+    public List<Line3D> getGridLines() {
+        Point3D[] points = getTransformedPoints();
+        int[] edges = getMesh().getEdges();
+
+        List<Line3D> lines = new ArrayList<>(edges.length / 2);
+        for (int k = 0; k < edges.length; k += 2) {
+            lines.add(new Line3D(points[edges[k]], points[edges[k + 1]]));
+        }
+        return lines;
+    }
+
+    public List<Face3D> getFaces() {
+        Point3D[] points = getTransformedPoints();
+        int[] faces = getMesh().getFaces();
+
+        List<Face3D> result = new ArrayList<>(faces.length / 4);
+        for (int k = 0; k < faces.length; k += 4) {
+            result.add(new Face3D(new Point3D[] {
+                    points[faces[k]], points[faces[k + 1]], points[faces[k + 2]], points[faces[k + 3]]
+            }, getFaceColor(k / 4)));
+        }
+        return result;
+    }
+
+    private Point3D[] getTransformedPoints() {
+        double[] xyz = getTransformedVertices();
+        Point3D[] points = new Point3D[xyz.length / 3];
+        for (int i = 0; i < points.length; ++i) {
+            points[i] = new Point3D(xyz[3*i], xyz[3*i + 1], xyz[3*i + 2]);
+        }
+        return points;
+    }
+
+    public void rotate(double t, char axis) {
+        Mat4 rotation = Mat4.rotation(t, axis);
 
-        transformation = temp;
+        // Rotate only the linear part, keeping translation
+        double dx = transformation.get(0, 3);
+        double dy = transformation.get(1, 3);
+        double dz = transformation.get(2, 3);
+        transformation.mulLeft(rotation);
+        transformation.set(0, 3, dx);
+        transformation.set(1, 3, dy);
+        transformation.set(2, 3, dz);
     }
 
     public void translate(double dx, double dy, double dz) {
-        transformation = Matrix.mul(
-                Matrix.translationMatrix(dx, dy, dz),
-                transformation
-        );
+        transformation.mulLeft(Mat4.translation(dx, dy, dz));
     }
 
     public void scale(double sx, double sy, double sz) {
-        transformation = Matrix.mul(
-                transformation,
-                Matrix.scaleMatrix(sx, sy, sz)
-        );
+        transformation.mulRight(Mat4.scale(sx, sy, sz));
     }
 
     public Point3D getCenter() {
         Point3D center = new Point3D(0, 0, 0);
-        Transform.apply(transformation, center);
+        transformation.transformPoint(center);
         return center;
     }
 }
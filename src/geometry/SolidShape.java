@@ -1,7 +1,24 @@
 package geometry;
 
+import math.Mat4;
+
+import java.awt.Color;
 import java.util.List;
 
 public interface SolidShape {
     List<Face3D> getFaces();
+
+    Mesh getMesh();
+
+    double[] getTransformedVertices();
+
+    Color getFaceColor(int face);
+
+    boolean isTwoSided();
+
+    Mat4 getTransformation();
+
+    double getBoundingSphere(double[] center);
+
+    double getBoundingSphere(Mat4 transformation, double[] center);
 }
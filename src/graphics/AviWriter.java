@@ -0,0 +1,228 @@
+package graphics;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Single video stream AVI (RIFF) file with uncompressed 24 bit or Motion JPEG frames.
+// Sizes and frame counts are unknown until close(), which patches them into the headers.
+public class AviWriter implements FrameSink {
+    public enum Codec { RAW, MJPEG }
+
+    // Offsets of the fields patched on close
+    private static final int RIFF_SIZE = 4;
+    private static final int AVIH_TOTAL_FRAMES = 48;
+    private static final int STRH_LENGTH = 140;
+    private static final int MOVI_SIZE = 216;
+    private static final int MOVI_START = 220;
+    private static final int HEADER_SIZE = 224;
+
+    private static final int AVIF_HASINDEX = 0x10;
+    private static final int AVIIF_KEYFRAME = 0x10;
+
+    private final RandomAccessFile file;
+    private final int width;
+    private final int height;
+    private final Codec codec;
+    private final float quality;
+
+    private ByteBuffer index = ByteBuffer.allocate(16 * 256).order(ByteOrder.LITTLE_ENDIAN);
+    private int frames = 0;
+    private long position = HEADER_SIZE;
+
+    // Reused per frame
+    private final byte[] raw;
+    private final BufferedImage rgb;
+    private final ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+    private ImageWriter jpegWriter;
+
+    // quality is the JPEG quality in [0, 1], ignored by RAW
+    public AviWriter(File file, int width, int height, int fps, Codec codec, float quality) throws IOException {
+        this.width = width;
+        this.height = height;
+        this.codec = codec;
+        this.quality = quality;
+
+        int stride = (3 * width + 3) & ~3; // Rows are padded to 4 bytes
+        raw = codec == Codec.RAW ? new byte[stride * height] : null;
+        rgb = codec == Codec.MJPEG ? new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB) : null;
+
+        this.file = new RandomAccessFile(file, "rw");
+        this.file.setLength(0);
+        this.file.write(header(fps, stride * height));
+    }
+
+    private byte[] header(int fps, int rawSize) {
+        ByteBuffer b = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        int compression = codec == Codec.MJPEG ? fourcc("MJPG") : 0;
+
+        fourcc(b, "RIFF"); b.putInt(0); fourcc(b, "AVI ");
+
+        fourcc(b, "LIST"); b.putInt(192); fourcc(b, "hdrl");
+        fourcc(b, "avih"); b.putInt(56);
+        b.putInt(1_000_000 / fps);  // Microseconds per frame
+        b.putInt(0);                // Max bytes per second
+        b.putInt(0);                // Padding granularity
+        b.putInt(AVIF_HASINDEX);
+        b.putInt(0);                // Total frames
+        b.putInt(0);                // Initial frames
+        b.putInt(1);                // Streams
+        b.putInt(rawSize);          // Suggested buffer size
+        b.putInt(width);
+        b.putInt(height);
+        b.putInt(0); b.putInt(0); b.putInt(0); b.putInt(0);
+
+        fourcc(b, "LIST"); b.putInt(116); fourcc(b, "strl");
+        fourcc(b, "strh"); b.putInt(56);
+        fourcc(b, "vids");
+        b.putInt(compression);
+        b.putInt(0);                // Flags
+        b.putShort((short) 0);      // Priority
+        b.putShort((short) 0);      // Language
+        b.putInt(0);                // Initial frames
+        b.putInt(1);                // Scale
+        b.putInt(fps);              // Rate, frames per second is rate / scale
+        b.putInt(0);                // Start
+        b.putInt(0);                // Length in frames
+        b.putInt(rawSize);          // Suggested buffer size
+        b.putInt(-1);               // Default quality
+        b.putInt(0);                // Sample size
+        b.putShort((short) 0); b.putShort((short) 0);
+        b.putShort((short) width); b.putShort((short) height);
+
+        fourcc(b, "strf"); b.putInt(40);
+        b.putInt(40);               // BITMAPINFOHEADER size
+        b.putInt(width);
+        b.putInt(height);           // Positive height, raw rows are stored bottom up
+        b.putShort((short) 1);      // Planes
+        b.putShort((short) 24);     // Bits per pixel
+        b.putInt(compression);
+        b.putInt(rawSize);
+        b.putInt(0); b.putInt(0); b.putInt(0); b.putInt(0);
+
+        fourcc(b, "LIST"); b.putInt(4); fourcc(b, "movi");
+        return b.array();
+    }
+
+    @Override
+    public void write(BufferedImage frame) throws IOException {
+        if (frame.getWidth() != width || frame.getHeight() != height) {
+            throw new IllegalArgumentException("Frame size differs from the video size");
+        }
+
+        byte[] data;
+        int size;
+        if (codec == Codec.RAW) {
+            encodeRaw(frame);
+            data = raw;
+            size = raw.length;
+        } else {
+            encodeJpeg(frame);
+            data = jpeg.toByteArray();
+            size = data.length;
+        }
+
+        ByteBuffer chunk = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        fourcc(chunk, "00dc");
+        chunk.putInt(size);
+
+        file.seek(position);
+        file.write(chunk.array());
+        file.write(data, 0, size);
+        if ((size & 1) != 0) file.write(0); // Chunks are word aligned
+
+        if (index.remaining() < 16) {
+            ByteBuffer grown = ByteBuffer.allocate(2 * index.capacity()).order(ByteOrder.LITTLE_ENDIAN);
+            index.flip();
+            grown.put(index);
+            index = grown;
+        }
+        fourcc(index, "00dc");
+        index.putInt(AVIIF_KEYFRAME);
+        index.putInt((int) (position - MOVI_START)); // Relative to the 'movi' list type
+        index.putInt(size);
+
+        position += 8 + size + (size & 1);
+        ++frames;
+    }
+
+    // Bottom up BGR rows
+    private void encodeRaw(BufferedImage frame) {
+        int stride = raw.length / height;
+        int[] row = new int[width];
+        for (int y = 0; y < height; ++y) {
+            frame.getRGB(0, y, width, 1, row, 0, width);
+            int k = (height - 1 - y) * stride;
+            for (int x = 0; x < width; ++x) {
+                int argb = row[x];
+                raw[k++] = (byte) argb;
+                raw[k++] = (byte) (argb >> 8);
+                raw[k++] = (byte) (argb >> 16);
+            }
+        }
+    }
+
+    private void encodeJpeg(BufferedImage frame) throws IOException {
+        // The JPEG writer does not take alpha, copy the pixels into an opaque image first
+        int[] dst = ((DataBufferInt) rgb.getRaster().getDataBuffer()).getData();
+        frame.getRGB(0, 0, width, height, dst, 0, width);
+
+        if (jpegWriter == null) {
+            jpegWriter = ImageIO.getImageWritersByFormatName("jpeg").next();
+        }
+        ImageWriteParam param = jpegWriter.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(quality);
+
+        jpeg.reset();
+        try (MemoryCacheImageOutputStream out = new MemoryCacheImageOutputStream(jpeg)) {
+            jpegWriter.setOutput(out);
+            jpegWriter.write(null, new IIOImage(rgb, null, null), param);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            // Index goes after the movie data, then patch the sizes left empty in the header
+            file.seek(position);
+            ByteBuffer chunk = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            fourcc(chunk, "idx1");
+            chunk.putInt(index.position());
+            file.write(chunk.array());
+            file.write(index.array(), 0, index.position());
+            long end = position + 8 + index.position();
+
+            patch(RIFF_SIZE, (int) (end - 8));
+            patch(AVIH_TOTAL_FRAMES, frames);
+            patch(STRH_LENGTH, frames);
+            patch(MOVI_SIZE, (int) (position - MOVI_START));
+        } finally {
+            if (jpegWriter != null) jpegWriter.dispose();
+            file.close();
+        }
+    }
+
+    private void patch(long offset, int value) throws IOException {
+        file.seek(offset);
+        file.writeInt(Integer.reverseBytes(value)); // RandomAccessFile is big endian
+    }
+
+    private static int fourcc(String code) {
+        return code.charAt(0) | code.charAt(1) << 8 | code.charAt(2) << 16 | code.charAt(3) << 24;
+    }
+
+    private static void fourcc(ByteBuffer b, String code) {
+        b.putInt(fourcc(code));
+    }
+}
@@ -0,0 +1,111 @@
+package graphics;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+// Renders many frames at once, one frame per worker thread. The timeline is only recorded on the calling
+// thread, each worker draws the recorded snapshots with its own Janim3D, and frames reach the sink in order.
+public class BatchRenderer {
+    private final Supplier<Janim3D> contexts;
+    private final int fps;
+    private final int threads;
+
+    private record Frame(BufferedImage image, DirtyRect dirty) {}
+
+    // contexts creates one Janim3D per worker, all configured the same (size, projection, lights, ...), so every
+    // worker holds its own buffers, see workerBytes. Tiled rasterization is best left off there, the workers
+    // already use every core.
+    public BatchRenderer(Supplier<Janim3D> contexts, int fps, int threads) {
+        this.contexts = contexts;
+        this.fps = fps;
+        this.threads = threads;
+    }
+
+    // Heap a worker needs for width x height contexts holding bufferBytes each (see Janim3D.bufferBytes): the
+    // context's buffers and the two frames it keeps in flight
+    public static long workerBytes(int width, int height, long bufferBytes) {
+        return bufferBytes + 2L * width * height * Integer.BYTES;
+    }
+
+    // One worker per core, fewer when three quarters of the free heap cannot hold workerBytes for each
+    public static int defaultThreads(long workerBytes) {
+        Runtime runtime = Runtime.getRuntime();
+        long free = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+        long fit = free / 4 * 3 / workerBytes;
+        return (int) Math.max(1, Math.min(runtime.availableProcessors(), fit));
+    }
+
+    public int getFps() {
+        return fps;
+    }
+
+    // Render frames 0 to frameCount - 1 into sink, which is left open
+    public void render(SnapshotTimeline timeline, int frameCount, FrameSink sink) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "janim-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ThreadLocal<Janim3D> janims = ThreadLocal.withInitial(contexts);
+        Queue<Frame> spare = new ConcurrentLinkedQueue<>();
+
+        // Frames in flight, bounded so that finished frames waiting for the sink do not pile up
+        Queue<Future<Frame>> pending = new ArrayDeque<>();
+        int window = 2 * threads;
+
+        try {
+            for (int frame = 0; frame < frameCount; ++frame) {
+                FrameSnapshot snapshot = timeline.snapshot(frame, frame / (double) fps);
+                pending.add(pool.submit(() -> renderSnapshot(janims.get(), snapshot, spare)));
+
+                if (pending.size() >= window) {
+                    write(pending.remove(), sink, spare);
+                }
+            }
+            while (!pending.isEmpty()) {
+                write(pending.remove(), sink, spare);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Rendering interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IOException("Rendering failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Frame renderSnapshot(Janim3D janim, FrameSnapshot snapshot, Queue<Frame> spare) {
+        Frame frame = spare.poll();
+        if (frame == null) {
+            frame = new Frame(new BufferedImage(janim.getWidth(), janim.getHeight(), BufferedImage.TYPE_INT_ARGB),
+                    new DirtyRect());
+            frame.dirty().set(0, 0, janim.getWidth() - 1, janim.getHeight() - 1);
+        }
+
+        janim.setTarget(frame.image(), frame.dirty());
+        janim.beginFrame();
+        janim.clear();
+        janim.clearZBuffer();
+        snapshot.render(janim);
+        janim.endFrame();
+        return frame;
+    }
+
+    private void write(Future<Frame> result, FrameSink sink, Queue<Frame> spare)
+            throws IOException, InterruptedException, ExecutionException {
+        Frame frame = result.get();
+        sink.write(frame.image());
+        spare.add(frame);
+    }
+}
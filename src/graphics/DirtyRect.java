@@ -0,0 +1,35 @@
+package graphics;
+
+// Inclusive screen rectangle grown by every write, used to clear only what was touched
+class DirtyRect {
+    int minX, minY, maxX, maxY;
+
+    DirtyRect() {
+        reset();
+    }
+
+    void reset() {
+        minX = Integer.MAX_VALUE;
+        minY = Integer.MAX_VALUE;
+        maxX = Integer.MIN_VALUE;
+        maxY = Integer.MIN_VALUE;
+    }
+
+    boolean isEmpty() {
+        return minX > maxX || minY > maxY;
+    }
+
+    void include(int x0, int y0, int x1, int y1) {
+        minX = Math.min(minX, x0);
+        minY = Math.min(minY, y0);
+        maxX = Math.max(maxX, x1);
+        maxY = Math.max(maxY, y1);
+    }
+
+    void set(int x0, int y0, int x1, int y1) {
+        minX = x0;
+        minY = y0;
+        maxX = x1;
+        maxY = y1;
+    }
+}
@@ -0,0 +1,11 @@
+package graphics;
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+
+// Destination of rendered frames, written one after another in frame order
+public interface FrameSink extends Closeable {
+    // frame is only valid during the call and must not be kept
+    void write(BufferedImage frame) throws IOException;
+}
@@ -0,0 +1,67 @@
+package graphics;
+
+import geometry.Point3D;
+import geometry.Shape;
+import geometry.SolidShape;
+import geometry.Vector3D;
+import math.Mat4;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Everything drawn in one frame, with copies of the shape transforms and camera taken when recorded.
+// Shapes themselves are shared between snapshots, only their transforms may change while rendering.
+public class FrameSnapshot {
+    private record Draw(Shape wireframe, SolidShape solid, Mat4 transform, List<Instance> instances,
+                        boolean stickers) {}
+
+    private final List<Draw> draws = new ArrayList<>();
+    private Point3D camPosition;
+    private Vector3D camDirection;
+    private double distance;
+
+    public void drawShape(Shape shape) {
+        shape.getMesh(); // Tessellate here, not concurrently on the workers
+        draws.add(new Draw(shape, null, shape.getTransformation().copy(), null, false));
+    }
+
+    public void drawSolidShape(SolidShape shape, boolean stickers) {
+        shape.getMesh();
+        draws.add(new Draw(null, shape, shape.getTransformation().copy(), null, stickers));
+    }
+
+    public void drawInstances(SolidShape shape, List<Instance> instances, boolean stickers) {
+        shape.getMesh();
+        List<Instance> copies = new ArrayList<>(instances.size());
+        for (Instance instance : instances) {
+            boolean[] faces = instance.faces() != null ? instance.faces().clone() : null;
+            copies.add(new Instance(instance.transform().copy(), instance.color(), faces));
+        }
+        draws.add(new Draw(null, shape, null, copies, stickers));
+    }
+
+    // Camera for this frame, otherwise the one set up on the renderer's Janim3D is kept
+    public void setCamera(Point3D position, Vector3D direction, double distance) {
+        this.camPosition = new Point3D(position);
+        this.camDirection = new Vector3D(direction);
+        this.distance = distance;
+    }
+
+    void render(Janim3D janim) {
+        if (camPosition != null) {
+            janim.setCamPosition(camPosition);
+            janim.setCamDirection(camDirection);
+            janim.setDistance(distance);
+        }
+
+        for (Draw draw : draws) {
+            if (draw.instances() != null) {
+                janim.drawInstances(draw.solid(), draw.instances(), draw.stickers());
+            } else if (draw.solid() != null) {
+                janim.drawSolidShape(draw.solid(), draw.transform(), draw.stickers());
+            } else {
+                janim.drawShape(draw.wireframe(), draw.transform());
+            }
+        }
+    }
+}
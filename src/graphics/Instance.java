@@ -0,0 +1,18 @@
+package graphics;
+
+import math.Mat4;
+
+import java.awt.Color;
+
+// One placement of a shape drawn with Janim3D.drawInstances: its transformation, unless null a color for every
+// face in place of the shape's own, and unless null which faces to draw, faces[f] false skipping face f.
+// The transform and faces are read when drawn, so they may be updated in place.
+public record Instance(Mat4 transform, Color color, boolean[] faces) {
+    public Instance(Mat4 transform) {
+        this(transform, null, null);
+    }
+
+    public Instance(Mat4 transform, Color color) {
+        this(transform, color, null);
+    }
+}
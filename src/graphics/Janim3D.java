@@ -1,34 +1,140 @@
 package graphics;
 
-import geometry.Face3D;
-import geometry.Line3D;
+import geometry.Mesh;
 import geometry.Point2D;
 import geometry.Point3D;
 import geometry.Shape;
 import geometry.SolidShape;
 import geometry.Vector3D;
+import math.Mat4;
 import math.Transform;
+import projection.Camera;
+import projection.ClipSpace;
 import projection.ParallelProjection;
 import projection.PerspectiveProjection;
 import projection.Projection;
 
 import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 public class Janim3D {
-    float[][] zBuffer;
+    float[] zBuffer; // Row-major, width * height
     private int width;
     private int height;
     private int scale;
     private Color color = Color.WHITE; // Default color value
     private BufferedImage buffer;
-    private Vector3D camDirection;
-    private Point3D camPosition;
+    private int[] pixels; // Backing array of buffer, null if it cannot be written directly
+    private final Camera camera;
     private Projection projection;
-    private double distance;
     private Point3D lightSource;
     private double ambientLight = 0.3;
+    private boolean tiled = false;
+    private TileBinner binner;
+    private boolean dirtyClearing = false;
+    private boolean backFaceCulling = false;
+    private boolean scanline = false;
+    private boolean fixedPoint = false;
+    private boolean hierarchicalDepth = false;
+    private boolean multisampling = false;
+    private boolean floatVertices = false;
+    private DirtyRect colorDirty = new DirtyRect();
+    private final DirtyRect depthDirty = new DirtyRect();
+
+    private static final int BACKGROUND = 0xFF000064; // Color(0, 0, 100)
+    private static final int STATS_WINDOW = 120; // Frames in the rolling stats
+    private static final int STICKER_BACKGROUND = 0xFF0A0A0A; // Color(10, 10, 10)
+    private static final double STICKER_LIFT = 0.01; // Off the face towards its front, against z-fighting
+
+    // Fixed point rasterization, 28.4 screen coordinates. Farther vertices keep the floating point path,
+    // so edge function products stay well inside a long.
+    private static final int SUBPIXEL_BITS = 4;
+    private static final int SUBPIXELS = 1 << SUBPIXEL_BITS;
+    private static final double FIXED_POINT_LIMIT = 1 << 22;
+
+    // Highest shade table indices, interpolated intensity and specular run from 0 to these
+    private static final double INTENSITY_SCALE = ShadeTable.INTENSITY_LEVELS - 1;
+    private static final double SPECULAR_SCALE = ShadeTable.SPECULAR_LEVELS - 1;
+
+    // Bounding sphere center of the shape being tested, world then view space
+    private final double[] bounds = new double[3];
+
+    // World xyz and screen xy of the mesh being drawn, reused between shapes
+    private double[] world = new double[0];
+    private double[] screen = new double[0];
+
+    // Perspective clipping, homogeneous xyw of the mesh being drawn and the quad or line being clipped.
+    // Clipped quads carry x, y, w, depth, intensity and specular per vertex.
+    private static final double GUARD_BAND = 4; // Screens on each side of the center
+    private static final int CLIP_STRIDE = 6;
+    private final ClipSpace clipSpace = new ClipSpace();
+    private double[] homogeneous = new double[0];
+    private final double[] clipQuad = new double[4 * CLIP_STRIDE];
+    private final double[] clipLine = new double[6];
+
+    // Sticker quad being drawn, local then world xyz, screen xy and homogeneous xyw
+    private final double[] stickerLocal = new double[12];
+    private final double[] stickerWorld = new double[12];
+    private final double[] stickerXY = new double[8];
+    private final double[] stickerXYW = new double[12];
+
+    // Float vertex path of wireframes, local space straight to homogeneous x, y, w (parallel x, y) and then
+    // screen x, y, one array per coordinate
+    private final Mat4 localToClip = new Mat4();
+    private float[] floatX = new float[0];
+    private float[] floatY = new float[0];
+    private float[] floatW = new float[0];
+    private float[] floatSX = new float[0];
+    private float[] floatSY = new float[0];
+
+    // Per vertex lighting of the mesh being drawn, entries are valid when their stamp equals stamp
+    private boolean smoothShading = false;
+    private int stamp;
+    private int[] dirStamp = new int[0];
+    private int[] shadeStamp = new int[0];
+    private double[] dirs = new double[0];          // Light then view direction, 6 per vertex
+    private double[] vertexNormals = new double[0];
+    private double[] vertexShading = new double[0]; // Intensity and specular, 2 per vertex
+
+    // Farthest depth of each 8x8 pixel tile of the z-buffer, a stale tile may be farther than its pixels
+    private static final int DEPTH_TILE_BITS = 3;
+    private static final int MIN_DEPTH_TEST_PIXELS = 256;
+    private int depthTilesX;
+    private float[] depthTiles = new float[0];
+    private boolean[] depthTileStale = new boolean[0];
+
+    // 4x rotated grid multisampling, offsets of the samples from the pixel center. Samples are stored
+    // per pixel, SAMPLES consecutive entries, and are written since the last clear inside sampleDirty.
+    private static final int SAMPLES = 4;
+    private static final double[] SAMPLE_X = {-0.125, 0.375, 0.125, -0.375};
+    private static final double[] SAMPLE_Y = {-0.375, -0.125, 0.375, 0.125};
+    private static final double SAMPLE_REACH = 0.375;
+    private float[] sampleDepth;
+    private int[] sampleColor;
+    private final DirtyRect sampleDirty = new DirtyRect();
+
+    // Faces of the mesh being drawn, nearest first
+    private long[] faceKeys = new long[0];
+    private int[] faceOrder = new int[0];
+
+    // Null unless setStatsEnabled(true)
+    private RenderStats stats;
+
+    // Shaded colors per base color, shared by all frames
+    private final Map<Integer, ShadeTable> shadeTables = new ConcurrentHashMap<>();
+
+    // Quad being shaded
+    private final int[] quad = new int[4];
+    private final double[] depths = new double[4];
+    private final double[] intensities = new double[4];
+    private final double[] speculars = new double[4];
+    private final double[] scratchDirs = new double[6];
 
     private static final int INSIDE = 0; // 0000
     private static final int LEFT = 1; // 0001
@@ -40,13 +146,16 @@ public class Janim3D {
         this.width = width;
         this.height = height;
         this.scale = 10; // Default scale
-        this.distance = -50;
 
-        buffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        setBuffer(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB));
         clear();
 
-        camPosition = new Point3D(20, 20, 20);
-        camDirection = new Vector3D(camPosition, new Point3D(0, 0, 0)); // look at origin
+        Point3D camPosition = new Point3D(20, 20, 20);
+        camera = new Camera(
+                camPosition,
+                new Vector3D(camPosition, new Point3D(0, 0, 0)), // look at origin
+                -50
+        );
         projection = Projection.PARALLEL; // Default projection
         lightSource = new Point3D(0, 0, 100);
         clearZBuffer();
@@ -73,11 +182,15 @@ public class Janim3D {
     }
 
     public Vector3D getCamDirection() {
-        return camDirection;
+        return camera.getDirection();
     }
 
     public Point3D getCamPosition() {
-        return camPosition;
+        return camera.getPosition();
+    }
+
+    public Camera getCamera() {
+        return camera;
     }
 
     public Projection getProjection() {
@@ -85,15 +198,23 @@ public class Janim3D {
     }
 
     public double getDistance() {
-        return distance;
+        return camera.getDistance();
     }
 
-    public void setWidth(int width) {
+    // Render at a new size into a new buffer, every size dependent buffer is reallocated and the frame is cleared.
+    // Not for a Janim3D drawn by a RenderLoop, OfflineRenderer or BatchRenderer, their frames keep the old size.
+    public void resize(int width, int height) {
         this.width = width;
-    }
-
-    public void setHeight(int height) {
         this.height = height;
+        zBuffer = null; // Reallocated with the depth tiles by clearZBuffer()
+        if (multisampling) {
+            sampleDepth = new float[SAMPLES * width * height];
+            sampleColor = new int[SAMPLES * width * height];
+            sampleDirty.set(0, 0, width - 1, height - 1);
+        }
+        setBuffer(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB));
+        clear();
+        clearZBuffer();
     }
 
     public void setScale(int scale) {
@@ -105,15 +226,31 @@ public class Janim3D {
     }
 
     public void setBuffer(BufferedImage buffer) {
+        DirtyRect dirty = new DirtyRect();
+        dirty.set(0, 0, width - 1, height - 1); // Unknown content
+        setTarget(buffer, dirty);
+    }
+
+    // Render into buffer, dirty holds the area written into it since its last clear
+    void setTarget(BufferedImage buffer, DirtyRect dirty) {
         this.buffer = buffer;
+        this.colorDirty = dirty;
+        this.pixels = null;
+
+        if (buffer.getType() == BufferedImage.TYPE_INT_ARGB
+                && buffer.getRaster().getDataBuffer() instanceof DataBufferInt data
+                && buffer.getRaster().getParent() == null
+                && buffer.getWidth() == width) {
+            this.pixels = data.getData();
+        }
     }
 
     public void setCamDirection(Vector3D direction) {
-        camDirection = direction;
+        camera.setDirection(direction);
     }
 
     public void setCamPosition(Point3D position) {
-        camPosition = position;
+        camera.setPosition(position);
     }
 
     public void setProjection(Projection projection) {
@@ -121,28 +258,210 @@ public class Janim3D {
     }
 
     public void setDistance(double distance) {
-        this.distance = distance;
+        camera.setDistance(distance);
     }
 
     public void setAmbientLight(double ambientLight) {
         this.ambientLight = ambientLight;
     }
 
+    public boolean isTiledRasterization() {
+        return tiled;
+    }
+
+    // Bin solid shape triangles into screen tiles and shade the tiles in parallel
+    public void setTiledRasterization(boolean tiled) {
+        this.tiled = tiled;
+    }
+
+    public boolean isDirtyClearing() {
+        return dirtyClearing;
+    }
+
+    // Let clear() and clearZBuffer() reset only the area written since the previous clear
+    public void setDirtyClearing(boolean dirtyClearing) {
+        this.dirtyClearing = dirtyClearing;
+    }
+
+    public boolean isScanlineRasterization() {
+        return scanline;
+    }
+
+    // Fill triangles span by span instead of testing every pixel of their bounding box
+    public void setScanlineRasterization(boolean scanline) {
+        this.scanline = scanline;
+    }
+
+    public boolean isFixedPointRasterization() {
+        return fixedPoint;
+    }
+
+    // Snap triangle vertices to 1/16 pixel and rasterize them with integer edge functions and the top left
+    // fill rule, so pixels on an edge shared by two triangles are covered exactly once
+    public void setFixedPointRasterization(boolean fixedPoint) {
+        this.fixedPoint = fixedPoint;
+    }
+
+    public boolean isHierarchicalDepth() {
+        return hierarchicalDepth;
+    }
+
+    // Keep the farthest depth of every 8x8 tile, so triangles and rows of tiles hidden behind what is already
+    // drawn are skipped before any per pixel work. Solid shape faces are then also drawn nearest first.
+    public void setHierarchicalDepth(boolean hierarchicalDepth) {
+        this.hierarchicalDepth = hierarchicalDepth;
+    }
+
+    public boolean isFloatVertices() {
+        return floatVertices;
+    }
+
+    // Transform and project wireframe vertices in single precision, from the mesh's float copy with the
+    // local to clip matrix composed once per shape. Solid shapes keep double precision.
+    public void setFloatVertices(boolean floatVertices) {
+        this.floatVertices = floatVertices;
+    }
+
+    public boolean isMultisampling() {
+        return multisampling;
+    }
+
+    // Test coverage and depth at 4 samples per pixel while shading every pixel once, each written pixel
+    // gets the average of its samples. Lines are drawn antialiased. Takes over from fixed point and scanline
+    // rasterization.
+    public void setMultisampling(boolean multisampling) {
+        if (multisampling && !this.multisampling) {
+            // Samples are only kept up to date while multisampling, start over from a cleared frame
+            sampleDepth = new float[SAMPLES * width * height];
+            sampleColor = new int[SAMPLES * width * height];
+            Arrays.fill(sampleDepth, Float.POSITIVE_INFINITY);
+            Arrays.fill(sampleColor, BACKGROUND);
+            sampleDirty.reset();
+        } else if (!multisampling && this.multisampling && zBuffer != null) {
+            // Left as it was while the samples took the depth test
+            Arrays.fill(zBuffer, Float.POSITIVE_INFINITY);
+        }
+        this.multisampling = multisampling;
+    }
+
+    // Bytes of the depth buffer of a width x height Janim3D, plus its color and depth samples when multisampling
+    public static long bufferBytes(int width, int height, boolean multisampling) {
+        long pixels = (long) width * height;
+        return pixels * Float.BYTES + (multisampling ? pixels * SAMPLES * (Float.BYTES + Integer.BYTES) : 0);
+    }
+
+    public boolean isBackFaceCulling() {
+        return backFaceCulling;
+    }
+
+    // Drop faces turned away from the camera before shading them, two-sided shapes are never culled
+    public void setBackFaceCulling(boolean backFaceCulling) {
+        this.backFaceCulling = backFaceCulling;
+    }
+
+    public boolean isSmoothShading() {
+        return smoothShading;
+    }
+
+    // Light solid shapes with vertex normals averaged over the surrounding faces instead of flat face normals
+    public void setSmoothShading(boolean smoothShading) {
+        this.smoothShading = smoothShading;
+    }
+
+    public boolean isStatsEnabled() {
+        return stats != null;
+    }
+
+    // Collect per frame timings and counts, frames are delimited by beginFrame() and endFrame()
+    public void setStatsEnabled(boolean enabled) {
+        if (enabled && stats == null) {
+            stats = new RenderStats(STATS_WINDOW);
+        } else if (!enabled) {
+            stats = null;
+        }
+    }
+
+    // Null while stats are disabled
+    public RenderStats getStats() {
+        return stats;
+    }
+
+    public void beginFrame() {
+        if (stats != null) stats.beginFrame();
+    }
+
+    public void endFrame() {
+        if (stats != null) stats.endFrame();
+    }
+
+    // Start of a timed stage, free while stats are disabled
+    private long stageStart() {
+        return stats != null ? System.nanoTime() : 0;
+    }
+
+    private void stageEnd(RenderStats.Stage stage, long start) {
+        if (stats != null) stats.addTime(stage, System.nanoTime() - start);
+    }
+
     private void drawPixel(int xScreen, int yScreen) {
+        drawPixel(xScreen, yScreen, color.getRGB());
+    }
+
+    private void drawPixel(int xScreen, int yScreen, int rgb) {
         if (xScreen >= 0 && xScreen < width && yScreen >= 0 && yScreen < height) {
-            buffer.setRGB(xScreen, yScreen, color.getRGB());
+            if (pixels != null) {
+                pixels[yScreen * width + xScreen] = rgb;
+            } else {
+                buffer.setRGB(xScreen, yScreen, rgb);
+            }
         }
     }
 
     public void clearZBuffer() {
-        if (zBuffer == null || zBuffer.length != width || zBuffer[0].length != height) {
-            zBuffer = new float[width][height];
+        long start = stageStart();
+        if (zBuffer == null || zBuffer.length != width * height) {
+            zBuffer = new float[width * height];
+            depthTilesX = (width + (1 << DEPTH_TILE_BITS) - 1) >> DEPTH_TILE_BITS;
+            int tilesY = (height + (1 << DEPTH_TILE_BITS) - 1) >> DEPTH_TILE_BITS;
+            depthTiles = new float[depthTilesX * tilesY];
+            depthTileStale = new boolean[depthTilesX * tilesY];
+            depthDirty.set(0, 0, width - 1, height - 1);
         }
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                zBuffer[x][y] = Float.POSITIVE_INFINITY;
+        if (multisampling) {
+            // The depth test only reads the samples
+            if (sampleDepth.length != SAMPLES * width * height) {
+                sampleDepth = new float[SAMPLES * width * height];
+                Arrays.fill(sampleDepth, Float.POSITIVE_INFINITY);
+            } else if (!dirtyClearing) {
+                Arrays.fill(sampleDepth, Float.POSITIVE_INFINITY);
+            } else if (!depthDirty.isEmpty()) {
+                for (int y = depthDirty.minY; y <= depthDirty.maxY; y++) {
+                    Arrays.fill(sampleDepth, SAMPLES * (y * width + depthDirty.minX),
+                            SAMPLES * (y * width + depthDirty.maxX + 1), Float.POSITIVE_INFINITY);
+                }
             }
         }
+
+        if (!dirtyClearing) {
+            if (!multisampling) Arrays.fill(zBuffer, Float.POSITIVE_INFINITY);
+            Arrays.fill(depthTiles, Float.POSITIVE_INFINITY);
+            Arrays.fill(depthTileStale, false);
+        } else if (!depthDirty.isEmpty()) {
+            for (int y = depthDirty.minY; !multisampling && y <= depthDirty.maxY; y++) {
+                Arrays.fill(zBuffer, y * width + depthDirty.minX, y * width + depthDirty.maxX + 1,
+                        Float.POSITIVE_INFINITY);
+            }
+            // Infinity is an upper bound for the pixels of partly cleared tiles too
+            for (int ty = depthDirty.minY >> DEPTH_TILE_BITS; ty <= depthDirty.maxY >> DEPTH_TILE_BITS; ty++) {
+                int row = ty * depthTilesX;
+                Arrays.fill(depthTiles, row + (depthDirty.minX >> DEPTH_TILE_BITS),
+                        row + (depthDirty.maxX >> DEPTH_TILE_BITS) + 1, Float.POSITIVE_INFINITY);
+                Arrays.fill(depthTileStale, row + (depthDirty.minX >> DEPTH_TILE_BITS),
+                        row + (depthDirty.maxX >> DEPTH_TILE_BITS) + 1, false);
+            }
+        }
+        depthDirty.reset();
+        stageEnd(RenderStats.Stage.CLEAR, start);
     }
 
     public void setLightSource(Point3D lightSource) {
@@ -150,12 +469,40 @@ public class Janim3D {
     }
 
     public void clear() {
-        int blue = new Color(0, 0, 100).getRGB();
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                buffer.setRGB(x, y, blue);
+        long start = stageStart();
+        if (!dirtyClearing) {
+            colorDirty.set(0, 0, width - 1, height - 1);
+        }
+
+        if (!colorDirty.isEmpty()) {
+            for (int y = colorDirty.minY; y <= colorDirty.maxY; y++) {
+                if (pixels != null) {
+                    Arrays.fill(pixels, y * width + colorDirty.minX, y * width + colorDirty.maxX + 1, BACKGROUND);
+                } else {
+                    for (int x = colorDirty.minX; x <= colorDirty.maxX; x++) {
+                        buffer.setRGB(x, y, BACKGROUND);
+                    }
+                }
+            }
+        }
+        colorDirty.reset();
+
+        if (multisampling) {
+            if (sampleColor.length != SAMPLES * width * height) {
+                sampleColor = new int[SAMPLES * width * height];
+                sampleDirty.set(0, 0, width - 1, height - 1);
+            } else if (!dirtyClearing) {
+                sampleDirty.set(0, 0, width - 1, height - 1);
+            }
+            if (!sampleDirty.isEmpty()) {
+                for (int y = sampleDirty.minY; y <= sampleDirty.maxY; y++) {
+                    Arrays.fill(sampleColor, SAMPLES * (y * width + sampleDirty.minX),
+                            SAMPLES * (y * width + sampleDirty.maxX + 1), BACKGROUND);
+                }
             }
+            sampleDirty.reset();
         }
+        stageEnd(RenderStats.Stage.CLEAR, start);
     }
 
     private void draw2DLine(int x0, int y0, int x1, int y1) {
@@ -163,6 +510,11 @@ public class Janim3D {
             return; // Line is completely outside
         }
 
+        colorDirty.include(
+                Math.max(0, Math.min(x0, x1)), Math.max(0, Math.min(y0, y1)),
+                Math.min(width - 1, Math.max(x0, x1)), Math.min(height - 1, Math.max(y0, y1))
+        );
+
         int dx = Math.abs(x1 - x0);
         int dy = Math.abs(y1 - y0);
         int sx = x0 < x1 ? 1 : -1;
@@ -184,84 +536,410 @@ public class Janim3D {
         }
     }
 
+    // Xiaolin Wu's line, covering the two pixels nearest to the line at every step along its major axis
+    private void drawSmoothLine(double x0, double y0, double x1, double y1) {
+        if (Double.isNaN(x0 + y0 + x1 + y1)) return;
+
+        boolean steep = Math.abs(y1 - y0) > Math.abs(x1 - x0);
+        if (steep) {
+            double t = x0; x0 = y0; y0 = t;
+            t = x1; x1 = y1; y1 = t;
+        }
+        if (x0 > x1) {
+            double t = x0; x0 = x1; x1 = t;
+            t = y0; y0 = y1; y1 = t;
+        }
+        double gradient = x1 == x0 ? 0 : (y1 - y0) / (x1 - x0);
+
+        // Only the steps over the screen
+        int from = (int) Math.max(0, Math.round(x0));
+        int to = (int) Math.min((steep ? height : width) - 1, Math.round(x1));
+        if (from > to) return;
+
+        double ya = y0 + gradient * (from - x0), yb = y0 + gradient * (to - x0);
+        int minMinor = (int) Math.max(0, Math.floor(Math.min(ya, yb)));
+        int maxMinor = (int) Math.min((steep ? width : height) - 1, Math.floor(Math.max(ya, yb)) + 1);
+        if (minMinor > maxMinor) return;
+        if (steep) {
+            colorDirty.include(minMinor, from, maxMinor, to);
+            sampleDirty.include(minMinor, from, maxMinor, to);
+        } else {
+            colorDirty.include(from, minMinor, to, maxMinor);
+            sampleDirty.include(from, minMinor, to, maxMinor);
+        }
+
+        int rgb = color.getRGB();
+        for (int x = from; x <= to; x++) {
+            double y = y0 + gradient * (x - x0);
+            int yi = (int) Math.floor(y);
+            double f = y - yi;
+            if (steep) {
+                blendSamples(yi, x, rgb, 1 - f);
+                blendSamples(yi + 1, x, rgb, f);
+            } else {
+                blendSamples(x, yi, rgb, 1 - f);
+                blendSamples(x, yi + 1, rgb, f);
+            }
+        }
+    }
+
+    // Mix rgb into every sample of the pixel by coverage, then resolve it
+    private void blendSamples(int x, int y, int rgb, double coverage) {
+        if (x < 0 || x >= width || y < 0 || y >= height) return;
+
+        int alpha = (int) (coverage * 256 + 0.5);
+        int p = y * width + x;
+        for (int i = SAMPLES * p; i < SAMPLES * (p + 1); i++) {
+            int c = sampleColor[i];
+            int rb = ((c & 0x00FF00FF) * (256 - alpha) + (rgb & 0x00FF00FF) * alpha) >>> 8;
+            int g = ((c & 0x0000FF00) * (256 - alpha) + (rgb & 0x0000FF00) * alpha) >>> 8;
+            sampleColor[i] = 0xFF000000 | (rb & 0x00FF00FF) | (g & 0x0000FF00);
+        }
+        resolve(p, x, y);
+    }
+
+    // Write the average of the samples of pixel p, at x, y, to the target
+    private void resolve(int p, int x, int y) {
+        int rb = 0x00020002, g = 0x00000200; // Halves, for rounding
+        for (int i = SAMPLES * p; i < SAMPLES * (p + 1); i++) {
+            int c = sampleColor[i];
+            rb += c & 0x00FF00FF;
+            g += c & 0x0000FF00;
+        }
+        int rgb = 0xFF000000 | (rb >>> 2 & 0x00FF00FF) | (g >>> 2 & 0x0000FF00);
+
+        if (pixels != null) {
+            pixels[p] = rgb;
+        } else {
+            buffer.setRGB(x, y, rgb);
+        }
+    }
+
     // 3D line drawing with archive.projection and screen transform
     public void draw3DLine(Point3D p0, Point3D p1) {
-        Point2D p0Proj, p1Proj;
-        if (projection == Projection.PARALLEL) {
-            p0Proj = ParallelProjection.project(p0, camDirection.opp(), camPosition);
-            p1Proj = ParallelProjection.project(p1, camDirection.opp(), camPosition);
-        } else if (projection == Projection.PERSPECTIVE) {
-            p0Proj = PerspectiveProjection.project(p0, camDirection.opp(), camPosition, distance);
-            p1Proj = PerspectiveProjection.project(p1, camDirection.opp(), camPosition, distance);
-        } else {
-            return;
+        if (projection == null) return;
+        if (projection == Projection.PERSPECTIVE) {
+            Mat4 m = camera.getPerspectiveMatrix();
+            clipLine[0] = m.row(0, p0.x(), p0.y(), p0.z());
+            clipLine[1] = m.row(1, p0.x(), p0.y(), p0.z());
+            clipLine[2] = m.row(3, p0.x(), p0.y(), p0.z());
+            clipLine[3] = m.row(0, p1.x(), p1.y(), p1.z());
+            clipLine[4] = m.row(1, p1.x(), p1.y(), p1.z());
+            clipLine[5] = m.row(3, p1.x(), p1.y(), p1.z());
+            setGuardBand();
+            if (clipSpace.outcode(clipLine, 0) != ClipSpace.INSIDE || clipSpace.outcode(clipLine, 3) != ClipSpace.INSIDE) {
+                drawClippedLine();
+                if (stats != null) stats.lines++;
+                return;
+            }
         }
 
+        Point2D p0Proj = camera.project(p0, projection);
+        Point2D p1Proj = camera.project(p1, projection);
+
         // Transform universal Point2D to real Point2D
         Transform.toRealPoint2D(p0Proj, scale, width / 2, height / 2);
         Transform.toRealPoint2D(p1Proj, scale, width / 2, height / 2);
 
-        draw2DLine((int) Math.round(p0Proj.x()), (int) Math.round(p0Proj.y()),
-                (int) Math.round(p1Proj.x()), (int) Math.round(p1Proj.y()));
+        drawScreenLine(p0Proj.x(), p0Proj.y(), p1Proj.x(), p1Proj.y());
+        if (stats != null) stats.lines++;
+    }
+
+    // Conservative test of a world space sphere against the screen bounds, and the eye plane with perspective.
+    // center is overwritten with view space coordinates.
+    private boolean isInView(double[] center, double radius) {
+        Mat4 view = camera.getViewMatrix();
+        view.transformPoint(center[0], center[1], center[2], center);
+        double x = center[0], y = center[1];
+
+        // Half screen size in universal units, with a pixel of slack for rounding
+        double halfW = (width / 2 + 1) / (double) scale;
+        double halfH = (height / 2 + 1) / (double) scale;
+
+        if (projection != Projection.PERSPECTIVE) {
+            return Math.abs(x) - radius <= halfW && Math.abs(y) - radius <= halfH;
+        }
+
+        // w = z/distance is the depth in front of the eye scaled by 1/|distance|
+        double f = Math.abs(camera.getDistance());
+        double depth = Math.signum(camera.getDistance()) * center[2];
+        if (depth + radius <= 0) return false; // Entirely behind the eye
+
+        // Side planes |x| * f = halfW * depth, measured as distances to each plane
+        double sideW = Math.sqrt(f*f + halfW*halfW);
+        double sideH = Math.sqrt(f*f + halfH*halfH);
+        return (Math.abs(x) * f - halfW * depth) / sideW <= radius &&
+                (Math.abs(y) * f - halfH * depth) / sideH <= radius;
+    }
+
+    // Project count packed xyz points to packed screen xy. In perspective the homogeneous coordinates go to
+    // xyw for clipping, the screen xy of points outside the clip planes must not be used then.
+    private void projectToScreen(double[] xyz, int count, double[] xy, double[] xyw) {
+        if (xyw != null) {
+            ClipSpace.project(xyz, count, camera.getPerspectiveMatrix(), xyw);
+            for (int i = 0; i < count; ++i) {
+                xy[2*i] = xyw[3*i] / xyw[3*i + 2];
+                xy[2*i + 1] = xyw[3*i + 1] / xyw[3*i + 2];
+            }
+            setGuardBand();
+        } else {
+            camera.project(xyz, count, projection, xy);
+        }
+
+        // Transform universal coordinates to real screen coordinates
+        int w = width / 2, h = height / 2;
+        for (int i = 0; i < 2 * count; i += 2) {
+            xy[i] = scale * xy[i] + w;
+            xy[i + 1] = -scale * xy[i + 1] + h;
+        }
+    }
+
+    // World space mesh vertices in a buffer owned by this instance
+    private double[] transformVertices(Mesh mesh, Mat4 transform) {
+        int count = mesh.vertexCount();
+        if (world.length < 3 * count) {
+            world = new double[3 * count];
+        }
+        transform.transformPoints(mesh.getVertices(), world, count);
+        return world;
+    }
+
+    // Homogeneous buffer in perspective, null when there is nothing to clip
+    private double[] homogeneousBuffer(int count) {
+        if (projection != Projection.PERSPECTIVE) return null;
+        if (homogeneous.length < 3 * count) {
+            homogeneous = new double[3 * count];
+        }
+        return homogeneous;
+    }
+
+    private void setGuardBand() {
+        clipSpace.setGuardBand(GUARD_BAND * (width / 2.0) / scale, GUARD_BAND * (height / 2.0) / scale);
+    }
+
+    private double screenX(double x, double w) {
+        return scale * (x / w) + width / 2;
+    }
+
+    private double screenY(double y, double w) {
+        return -scale * (y / w) + height / 2;
     }
 
-    private void drawFilled3DQuad(Face3D face, Color pieceColor, boolean material) {
-        Point2D[] screenPts = new Point2D[4];
-        double[] depths = new double[4];
-        double[] intensities = new double[4];
-        double[] speculars = new double[4];
+    // Clip clipLine, homogeneous end points, and draw what is left of it
+    private void drawClippedLine() {
+        if (!clipSpace.clipLine(clipLine)) return;
+        drawScreenLine(screenX(clipLine[0], clipLine[2]), screenY(clipLine[1], clipLine[2]),
+                screenX(clipLine[3], clipLine[5]), screenY(clipLine[4], clipLine[5]));
+    }
+
+    private void drawScreenLine(double x0, double y0, double x1, double y1) {
+        if (multisampling) {
+            drawSmoothLine(x0, y0, x1, y1);
+        } else {
+            draw2DLine((int) Math.round(x0), (int) Math.round(y0), (int) Math.round(x1), (int) Math.round(y1));
+        }
+    }
+
+    private double[] screenBuffer(int count) {
+        if (screen.length < 2 * count) {
+            screen = new double[2 * count];
+        }
+        return screen;
+    }
 
-        Point3D[] vertices = face.getVertices();
-        Vector3D normal = face.normal();
-        normal.normalize();
+    // Quad a, b, c, d given by indices into packed world xyz and matching screen xy, and homogeneous xyw in
+    // perspective. With shared the indices refer to the mesh being drawn, whose per vertex lighting terms
+    // are cached.
+    private void drawFilled3DQuad(double[] world, double[] xy, double[] xyw, int a, int b, int c, int d,
+                                  int baseRGB, boolean material, boolean shared) {
+        quad[0] = a;
+        quad[1] = b;
+        quad[2] = c;
+        quad[3] = d;
+
+        // Same orientation as Face3D.normal()
+        double ux = world[3*a] - world[3*b], uy = world[3*a + 1] - world[3*b + 1], uz = world[3*a + 2] - world[3*b + 2];
+        double vx = world[3*a] - world[3*d], vy = world[3*a + 1] - world[3*d + 1], vz = world[3*a + 2] - world[3*d + 2];
+        double nx = uy*vz - uz*vy, ny = uz*vx - ux*vz, nz = ux*vy - uy*vx;
+        double length = Math.sqrt(nx*nx + ny*ny + nz*nz);
+        if (length != 0) {
+            nx /= length;
+            ny /= length;
+            nz /= length;
+        }
 
+        long start = stageStart();
         for (int i = 0; i < 4; ++i) {
-            Point3D p = vertices[i];
-            Point2D proj;
+            int v = quad[i];
+            depths[i] = world[3*v + 2];
 
-            if (projection == Projection.PARALLEL)
-                proj = ParallelProjection.project(p, camDirection.opp(), camPosition);
-            else
-                proj = PerspectiveProjection.project(p, camDirection.opp(), camPosition, distance);
+            if (!shared) {
+                lightDirections(world, v, scratchDirs, 0);
+                shade(scratchDirs, 0, nx, ny, nz, material, i);
+                continue;
+            }
 
-            Transform.toRealPoint2D(proj, scale, width / 2, height / 2);
-            screenPts[i] = proj;
-            depths[i] = p.z();
+            if (dirStamp[v] != stamp) {
+                dirStamp[v] = stamp;
+                lightDirections(world, v, dirs, 6*v);
+            }
 
-            Shading shading = computePhongIntensity(p, normal, lightSource, camPosition, material);
-            intensities[i] = shading.intensity();
-            speculars[i] = shading.specular();
+            // Smooth normals belong to the front side, flipped two-sided faces keep the face normal
+            if (smoothShading && !material && nx*vertexNormals[3*v] + ny*vertexNormals[3*v + 1] + nz*vertexNormals[3*v + 2] > 0) {
+                if (shadeStamp[v] != stamp) {
+                    shadeStamp[v] = stamp;
+                    shade(dirs, 6*v, vertexNormals[3*v], vertexNormals[3*v + 1], vertexNormals[3*v + 2], material, i);
+                    vertexShading[2*v] = intensities[i];
+                    vertexShading[2*v + 1] = speculars[i];
+                } else {
+                    intensities[i] = vertexShading[2*v];
+                    speculars[i] = vertexShading[2*v + 1];
+                }
+            } else {
+                shade(dirs, 6*v, nx, ny, nz, material, i);
+            }
+        }
+        stageEnd(RenderStats.Stage.LIGHTING, start);
+
+        if (xyw != null) {
+            int codeA = clipSpace.outcode(xyw, 3*a), codeB = clipSpace.outcode(xyw, 3*b);
+            int codeC = clipSpace.outcode(xyw, 3*c), codeD = clipSpace.outcode(xyw, 3*d);
+            if ((codeA | codeB | codeC | codeD) != ClipSpace.INSIDE) {
+                if ((codeA & codeB & codeC & codeD) == ClipSpace.INSIDE) {
+                    submitClippedQuad(xyw, codeA | codeB | codeC | codeD, baseRGB);
+                }
+                return;
+            }
         }
 
-        rasterizeTriangle(screenPts[0], screenPts[1], screenPts[2],
-                depths[0], depths[1], depths[2],
-                intensities[0], intensities[1], intensities[2],
-                speculars[0], speculars[1], speculars[2],
-                pieceColor);
+        // Quads repeating a vertex (e.g. Peg cap fans {b, a, center, center}) have a zero area triangle
+        if (a != b && b != c && a != c) {
+            submitTriangle(xy[2*a], xy[2*a + 1], xy[2*b], xy[2*b + 1], xy[2*c], xy[2*c + 1],
+                    depths[0], depths[1], depths[2],
+                    intensities[0], intensities[1], intensities[2],
+                    speculars[0], speculars[1], speculars[2],
+                    baseRGB);
+        }
 
-        rasterizeTriangle(screenPts[0], screenPts[2], screenPts[3],
+        if (a == d || c == d || a == c) return;
+        submitTriangle(xy[2*a], xy[2*a + 1], xy[2*c], xy[2*c + 1], xy[2*d], xy[2*d + 1],
                 depths[0], depths[2], depths[3],
                 intensities[0], intensities[2], intensities[3],
                 speculars[0], speculars[2], speculars[3],
-                pieceColor);
+                baseRGB);
     }
 
-    private Shading computePhongIntensity(Point3D point, Vector3D normal,
-                                          Point3D lightPos, Point3D viewPos,
-                                          boolean material) {
-        Vector3D n = new Vector3D(normal); // Already normalized before call
-        Vector3D l = new Vector3D(lightPos, point);
-        l.normalize();
+    // Clip the quad being shaded against the planes it crosses and submit the fan of what is left
+    private void submitClippedQuad(double[] xyw, int planes, int baseRGB) {
+        for (int i = 0; i < 4; ++i) {
+            int o = CLIP_STRIDE * i;
+            System.arraycopy(xyw, 3 * quad[i], clipQuad, o, 3);
+            clipQuad[o + 3] = depths[i];
+            clipQuad[o + 4] = intensities[i];
+            clipQuad[o + 5] = speculars[i];
+        }
 
-        Vector3D v = new Vector3D(viewPos, point);
-        v.normalize();
+        int count = clipSpace.clipPolygon(clipQuad, 4, CLIP_STRIDE, planes);
+        double[] polygon = clipSpace.polygon();
+        double x0 = screenX(polygon[0], polygon[2]), y0 = screenY(polygon[1], polygon[2]);
+        for (int i = 1; i + 1 < count; ++i) {
+            int p = CLIP_STRIDE * i, q = CLIP_STRIDE * (i + 1);
+            submitTriangle(x0, y0,
+                    screenX(polygon[p], polygon[p + 2]), screenY(polygon[p + 1], polygon[p + 2]),
+                    screenX(polygon[q], polygon[q + 2]), screenY(polygon[q + 1], polygon[q + 2]),
+                    polygon[3], polygon[p + 3], polygon[q + 3],
+                    polygon[4], polygon[p + 4], polygon[q + 4],
+                    polygon[5], polygon[p + 5], polygon[q + 5],
+                    baseRGB);
+        }
+    }
 
-        Vector3D r = new Vector3D(n);
-        r.scale(2 * n.dot(l));
-        r.minus(l);
-        r.normalize();
+    private void submitTriangle(
+            double x0, double y0, double x1, double y1, double x2, double y2,
+            double z0, double z1, double z2,
+            double i0, double i1, double i2,
+            double s0, double s1, double s2,
+            int baseRGB
+    ) {
+        if (fixedPoint && !multisampling && fitsFixedPoint(x0, y0, x1, y1, x2, y2)) {
+            // Snap before bounds and binning, so every later stage sees the vertices the rasterizer uses
+            x0 = snap(x0); y0 = snap(y0);
+            x1 = snap(x1); y1 = snap(y1);
+            x2 = snap(x2); y2 = snap(y2);
+        }
 
-        double specularStrength, shininess;
+        double reach = coverageReach();
+        int minX = (int) Math.max(0, Math.ceil(min3(x0, x1, x2) - reach));
+        int maxX = (int) Math.min(width - 1, Math.floor(max3(x0, x1, x2) + reach));
+        int minY = (int) Math.max(0, Math.ceil(min3(y0, y1, y2) - reach));
+        int maxY = (int) Math.min(height - 1, Math.floor(max3(y0, y1, y2) + reach));
+        if (minX > maxX || minY > maxY) return; // No pixel centers or samples on screen
+
+        colorDirty.include(minX, minY, maxX, maxY);
+        depthDirty.include(minX, minY, maxX, maxY);
+        if (multisampling) sampleDirty.include(minX, minY, maxX, maxY);
+        if (stats != null) stats.triangles++;
+
+        if (tiled) {
+            binner.add(x0, y0, x1, y1, x2, y2, z0, z1, z2, i0, i1, i2, s0, s1, s2, baseRGB);
+        } else {
+            long start = stageStart();
+            rasterizeTriangle(x0, y0, x1, y1, x2, y2, z0, z1, z2, i0, i1, i2, s0, s1, s2, baseRGB,
+                    0, 0, width - 1, height - 1);
+            stageEnd(RenderStats.Stage.RASTERIZATION, start);
+        }
+    }
+
+    // Invalidate the lighting cache for a new mesh, growing it as needed
+    private void prepareLighting(Mesh mesh, double[] world) {
+        int count = mesh.vertexCount();
+        if (dirStamp.length < count) {
+            dirStamp = new int[count];
+            shadeStamp = new int[count];
+            dirs = new double[6 * count];
+            vertexNormals = new double[3 * count];
+            vertexShading = new double[2 * count];
+            stamp = 0;
+        }
+        ++stamp;
+
+        if (smoothShading) {
+            computeVertexNormals(mesh, world);
+        }
+    }
+
+    // Unit directions from the light and from the viewer to vertex v, written to out[offset..offset+5]
+    private void lightDirections(double[] world, int v, double[] out, int offset) {
+        double px = world[3*v], py = world[3*v + 1], pz = world[3*v + 2];
+        direction(px - lightSource.x(), py - lightSource.y(), pz - lightSource.z(), out, offset);
+
+        Point3D viewPos = camera.getPosition();
+        direction(px - viewPos.x(), py - viewPos.y(), pz - viewPos.z(), out, offset + 3);
+    }
+
+    private static void direction(double x, double y, double z, double[] out, int offset) {
+        double length = Math.sqrt(x*x + y*y + z*z);
+        if (length != 0) {
+            x /= length;
+            y /= length;
+            z /= length;
+        }
+        out[offset] = x;
+        out[offset + 1] = y;
+        out[offset + 2] = z;
+    }
+
+    // Phong terms for unit normal n and the directions at dirs[offset], stored at index k of the quad arrays
+    private void shade(double[] dirs, int offset, double nx, double ny, double nz, boolean material, int k) {
+        double lx = dirs[offset], ly = dirs[offset + 1], lz = dirs[offset + 2];
+        double nl = nx*lx + ny*ly + nz*lz;
+
+        // Reflection of the light direction, unit length since n and l are
+        double rx = 2*nl*nx - lx, ry = 2*nl*ny - ly, rz = 2*nl*nz - lz;
+        double rv = rx*dirs[offset + 3] + ry*dirs[offset + 4] + rz*dirs[offset + 5];
+
+        double specularStrength;
+        int shininess;
 
         if (material) {
             specularStrength = 0.1;
@@ -271,31 +949,159 @@ public class Janim3D {
             shininess = 64;
         }
 
-        double diffuse = Math.max(0, n.dot(l.opp()));
-        double specular = Math.pow(Math.max(0, r.dot(v)), shininess) * specularStrength;
+        double diffuse = Math.max(0, -nl);
+        double specular = pow(Math.max(0, rv), shininess) * specularStrength;
 
         double intensity = ambientLight + diffuse;
-        intensity = Math.min(1.0, Math.max(0.0, intensity));
-
-        return new Shading(intensity, Math.min(1.0, specular));
+        intensities[k] = Math.min(1.0, Math.max(0.0, intensity));
+        speculars[k] = Math.min(1.0, specular);
     }
 
-    private Color shadeColor(Color base, double intensity, double specular) {
-        int r = (int)(base.getRed() * intensity + 255 * specular);
-        int g = (int)(base.getGreen() * intensity + 255 * specular);
-        int b = (int)(base.getBlue() * intensity + 255 * specular);
-        return new Color(clamp(r), clamp(g), clamp(b));
+    // x^n by repeated squaring, exact for the small integer shininess values used here
+    private static double pow(double x, int n) {
+        double result = 1;
+        while (n > 0) {
+            if ((n & 1) != 0) result *= x;
+            x *= x;
+            n >>= 1;
+        }
+        return result;
     }
 
-    private int clamp(int val) {
-        return Math.max(0, Math.min(255, val));
+    // Area weighted average of the normals of the faces around each vertex of mesh
+    private void computeVertexNormals(Mesh mesh, double[] world) {
+        int count = mesh.vertexCount();
+        Arrays.fill(vertexNormals, 0, 3 * count, 0);
+
+        int[] faces = mesh.getFaces();
+        for (int k = 0; k < faces.length; k += 4) {
+            int a = faces[k], b = faces[k + 1], d = faces[k + 3];
+            double ux = world[3*a] - world[3*b], uy = world[3*a + 1] - world[3*b + 1], uz = world[3*a + 2] - world[3*b + 2];
+            double vx = world[3*a] - world[3*d], vy = world[3*a + 1] - world[3*d + 1], vz = world[3*a + 2] - world[3*d + 2];
+            double nx = uy*vz - uz*vy, ny = uz*vx - ux*vz, nz = ux*vy - uy*vx;
+
+            for (int i = 0; i < 4; ++i) {
+                int v = 3 * faces[k + i];
+                vertexNormals[v] += nx;
+                vertexNormals[v + 1] += ny;
+                vertexNormals[v + 2] += nz;
+            }
+        }
+
+        for (int v = 0; v < 3 * count; v += 3) {
+            direction(vertexNormals[v], vertexNormals[v + 1], vertexNormals[v + 2], vertexNormals, v);
+        }
     }
 
     public void drawShape(Shape shape) {
-        List<Line3D> lines = shape.getGridLines();
-        for (Line3D line : lines) {
-            draw3DLine(line.getP0(), line.getP1());
+        drawShape(shape, shape.getTransformation());
+    }
+
+    // Draw shape as if its transformation was transform, leaving the shape untouched.
+    // Every mesh vertex is transformed and projected once, edges are then drawn by index.
+    public void drawShape(Shape shape, Mat4 transform) {
+        if (projection == null) return;
+        if (!isInView(bounds, shape.getBoundingSphere(transform, bounds))) {
+            if (stats != null) stats.culledShapes++;
+            return;
         }
+
+        if (floatVertices) {
+            drawFloatShape(shape.getMesh(), transform);
+            return;
+        }
+
+        long start = stageStart();
+        Mesh mesh = shape.getMesh();
+        double[] world = transformVertices(mesh, transform);
+        stageEnd(RenderStats.Stage.TESSELLATION, start);
+
+        start = stageStart();
+        double[] xy = screenBuffer(mesh.vertexCount());
+        double[] xyw = homogeneousBuffer(mesh.vertexCount());
+        projectToScreen(world, mesh.vertexCount(), xy, xyw);
+        stageEnd(RenderStats.Stage.PROJECTION, start);
+
+        start = stageStart();
+        int[] edges = mesh.getEdges();
+        for (int k = 0; k < edges.length; k += 2) {
+            int a = 2 * edges[k];
+            int b = 2 * edges[k + 1];
+            if (xyw != null) {
+                int codeA = clipSpace.outcode(xyw, 3 * edges[k]), codeB = clipSpace.outcode(xyw, 3 * edges[k + 1]);
+                if ((codeA | codeB) != ClipSpace.INSIDE) {
+                    if ((codeA & codeB) == ClipSpace.INSIDE) {
+                        System.arraycopy(xyw, 3 * edges[k], clipLine, 0, 3);
+                        System.arraycopy(xyw, 3 * edges[k + 1], clipLine, 3, 3);
+                        drawClippedLine();
+                    }
+                    continue;
+                }
+            }
+            drawScreenLine(xy[a], xy[a + 1], xy[b], xy[b + 1]);
+        }
+        stageEnd(RenderStats.Stage.RASTERIZATION, start);
+        if (stats != null) stats.lines += mesh.edgeCount();
+    }
+
+    // drawShape in single precision. Transform and projection are one pass over the local vertices.
+    private void drawFloatShape(Mesh mesh, Mat4 transform) {
+        long start = stageStart();
+        int count = mesh.vertexCount();
+        Mesh.FloatVertices local = mesh.getFloatVertices();
+        if (floatX.length < count) {
+            floatX = new float[count];
+            floatY = new float[count];
+            floatW = new float[count];
+            floatSX = new float[count];
+            floatSY = new float[count];
+        }
+
+        boolean perspective = projection == Projection.PERSPECTIVE;
+        Mat4.mulInto(camera.getMatrix(projection), transform, localToClip);
+        float s = scale, cx = width / 2, cy = height / 2;
+        if (perspective) {
+            PerspectiveProjection.project(local.xs(), local.ys(), local.zs(), count, localToClip, floatX, floatY, floatW);
+            setGuardBand();
+            // Points outside the clip planes get garbage here, their edges are clipped instead
+            for (int i = 0; i < count; ++i) {
+                float k = s / floatW[i];
+                floatSX[i] = k * floatX[i] + cx;
+                floatSY[i] = -k * floatY[i] + cy;
+            }
+        } else {
+            ParallelProjection.project(local.xs(), local.ys(), local.zs(), count, localToClip, floatX, floatY);
+            for (int i = 0; i < count; ++i) {
+                floatSX[i] = s * floatX[i] + cx;
+                floatSY[i] = -s * floatY[i] + cy;
+            }
+        }
+        stageEnd(RenderStats.Stage.PROJECTION, start);
+
+        start = stageStart();
+        int[] edges = mesh.getEdges();
+        for (int k = 0; k < edges.length; k += 2) {
+            int a = edges[k], b = edges[k + 1];
+            if (perspective) {
+                int codeA = clipSpace.outcode(floatX[a], floatY[a], floatW[a]);
+                int codeB = clipSpace.outcode(floatX[b], floatY[b], floatW[b]);
+                if ((codeA | codeB) != ClipSpace.INSIDE) {
+                    if ((codeA & codeB) == ClipSpace.INSIDE) {
+                        clipLine[0] = floatX[a];
+                        clipLine[1] = floatY[a];
+                        clipLine[2] = floatW[a];
+                        clipLine[3] = floatX[b];
+                        clipLine[4] = floatY[b];
+                        clipLine[5] = floatW[b];
+                        drawClippedLine();
+                    }
+                    continue;
+                }
+            }
+            drawScreenLine(floatSX[a], floatSY[a], floatSX[b], floatSY[b]);
+        }
+        stageEnd(RenderStats.Stage.RASTERIZATION, start);
+        if (stats != null) stats.lines += mesh.edgeCount();
     }
 
     private double min3(double a, double b, double c) {
@@ -306,108 +1112,701 @@ public class Janim3D {
         return Math.max(a, Math.max(b, c));
     }
 
-    private void rasterizeTriangle(
-            Point2D p0, Point2D p1, Point2D p2,
+    // Rasterize the triangle restricted to the clip rectangle [clipMinX, clipMaxX] x [clipMinY, clipMaxY]
+    void rasterizeTriangle(
+            double x0, double y0, double x1, double y1, double x2, double y2,
+            double z0, double z1, double z2,
+            double i0, double i1, double i2,
+            double s0, double s1, double s2,
+            int baseRGB,
+            int clipMinX, int clipMinY, int clipMaxX, int clipMaxY
+    ) {
+        double zMin = Double.NaN;
+        if (hierarchicalDepth) {
+            // Pixels the triangle may touch, floor and ceil so that this holds on both rasterization paths
+            int minX = (int) Math.max(clipMinX, Math.floor(min3(x0, x1, x2)));
+            int maxX = (int) Math.min(clipMaxX, Math.ceil(max3(x0, x1, x2)));
+            int minY = (int) Math.max(clipMinY, Math.floor(min3(y0, y1, y2)));
+            int maxY = (int) Math.min(clipMaxY, Math.ceil(max3(y0, y1, y2)));
+            if (minX > maxX || minY > maxY) return;
+
+            // Refreshing tiles costs more than drawing a few pixels, small triangles go straight to the z test
+            if ((maxX - minX + 1) * (maxY - minY + 1) >= MIN_DEPTH_TEST_PIXELS) {
+                zMin = min3(z0, z1, z2);
+                if (isDepthOccluded(minX, minY, maxX, maxY, zMin)) return;
+            }
+        }
+
+        // Shading happens in table units, every path below interpolates these
+        ShadeTable table = shadeTable(baseRGB);
+        i0 *= INTENSITY_SCALE; i1 *= INTENSITY_SCALE; i2 *= INTENSITY_SCALE;
+        s0 *= SPECULAR_SCALE; s1 *= SPECULAR_SCALE; s2 *= SPECULAR_SCALE;
+
+        int written;
+        if (multisampling) {
+            written = rasterizeMultisampled(x0, y0, x1, y1, x2, y2, z0, z1, z2, i0, i1, i2, s0, s1, s2, table,
+                    clipMinX, clipMinY, clipMaxX, clipMaxY, zMin);
+        } else if (fixedPoint && fitsFixedPoint(x0, y0, x1, y1, x2, y2)) {
+            written = rasterizeFixedPoint(x0, y0, x1, y1, x2, y2, z0, z1, z2, i0, i1, i2, s0, s1, s2, table,
+                    clipMinX, clipMinY, clipMaxX, clipMaxY, zMin);
+        } else {
+            written = rasterizeFloatingPoint(x0, y0, x1, y1, x2, y2, z0, z1, z2, i0, i1, i2, s0, s1, s2, table,
+                    clipMinX, clipMinY, clipMaxX, clipMaxY, zMin);
+        }
+
+        if (hierarchicalDepth && written > 0) {
+            int minX = (int) Math.max(clipMinX, Math.floor(min3(x0, x1, x2)));
+            int maxX = (int) Math.min(clipMaxX, Math.ceil(max3(x0, x1, x2)));
+            int minY = (int) Math.max(clipMinY, Math.floor(min3(y0, y1, y2)));
+            int maxY = (int) Math.min(clipMaxY, Math.ceil(max3(y0, y1, y2)));
+            for (int ty = minY >> DEPTH_TILE_BITS; ty <= maxY >> DEPTH_TILE_BITS; ty++) {
+                int row = ty * depthTilesX;
+                Arrays.fill(depthTileStale, row + (minX >> DEPTH_TILE_BITS), row + (maxX >> DEPTH_TILE_BITS) + 1, true);
+            }
+        }
+    }
+
+    // Edge function walk over the bounding box, or over the span each row covers with scanline rasterization.
+    // Returns the number of pixels written. Intensity and specular are in table units, and zMin is the
+    // nearest vertex depth when rows of depth tiles may be skipped, NaN otherwise.
+    private int rasterizeFloatingPoint(
+            double x0, double y0, double x1, double y1, double x2, double y2,
             double z0, double z1, double z2,
             double i0, double i1, double i2,
             double s0, double s1, double s2,
-            Color baseColor
+            ShadeTable table,
+            int clipMinX, int clipMinY, int clipMaxX, int clipMaxY,
+            double zMin
     ) {
-        int minX = (int) Math.max(0, Math.ceil(min3(p0.x(), p1.x(), p2.x())));
-        int maxX = (int) Math.min(width - 1, Math.floor(max3(p0.x(), p1.x(), p2.x())));
-        int minY = (int) Math.max(0, Math.ceil(min3(p0.y(), p1.y(), p2.y())));
-        int maxY = (int) Math.min(height - 1, Math.floor(max3(p0.y(), p1.y(), p2.y())));
+        int minX = (int) Math.max(clipMinX, Math.ceil(min3(x0, x1, x2)));
+        int maxX = (int) Math.min(clipMaxX, Math.floor(max3(x0, x1, x2)));
+        int minY = (int) Math.max(clipMinY, Math.ceil(min3(y0, y1, y2)));
+        int maxY = (int) Math.min(clipMaxY, Math.floor(max3(y0, y1, y2)));
+
+        // Edge weights always add up to the area, so with area <= 0 no pixel can pass the edge tests
+        double area = edgeFunction(x0, y0, x1, y1, x2, y2);
+        if (area <= 0) return 0;
+        double invArea = 1 / area;
+
+        // Edge function increments for one pixel step along x
+        double e0x = y2 - y1;
+        double e1x = y0 - y2;
+        double e2x = y1 - y0;
 
-        double area = edgeFunction(p0, p1, p2);
-        if (area == 0) return;
+        // Attribute gradients along x
+        double dz = interpolate(e0x, e1x, e2x, z0, z1, z2, invArea);
+        double di = interpolate(e0x, e1x, e2x, i0, i1, i2, invArea);
+        double ds = interpolate(e0x, e1x, e2x, s0, s1, s2, invArea);
+
+        int[] pixels = this.pixels;
+        int written = 0, rejected = 0;
 
         for (int y = minY; y <= maxY; y++) {
-            for (int x = minX; x <= maxX; x++) {
-                Point2D p = new Point2D(x, y);
+            if (skipDepthRows(y, minY, minX, maxX, maxY, zMin)) {
+                y |= (1 << DEPTH_TILE_BITS) - 1; // Last row of the tile row
+                continue;
+            }
+
+            // Evaluate edges and attributes at the row start, then step along the row
+            double w0 = edgeFunction(x1, y1, x2, y2, minX, y);
+            double w1 = edgeFunction(x2, y2, x0, y0, minX, y);
+            double w2 = edgeFunction(x0, y0, x1, y1, minX, y);
+            double z = interpolate(w0, w1, w2, z0, z1, z2, invArea);
+            double intensity = interpolate(w0, w1, w2, i0, i1, i2, invArea);
+            double specular = interpolate(w0, w1, w2, s0, s1, s2, invArea);
+            int row = y * width;
+            int start = minX, end = maxX;
+
+            if (scanline) {
+                // Solve each edge function for where it turns non negative along the row, leaving the covered span
+                double left = minX, right = maxX;
+                if (e0x > 0) left = Math.max(left, Math.ceil(minX - w0 / e0x));
+                else if (e0x < 0) right = Math.min(right, Math.floor(minX - w0 / e0x));
+                else if (w0 < 0) continue;
+                if (e1x > 0) left = Math.max(left, Math.ceil(minX - w1 / e1x));
+                else if (e1x < 0) right = Math.min(right, Math.floor(minX - w1 / e1x));
+                else if (w1 < 0) continue;
+                if (e2x > 0) left = Math.max(left, Math.ceil(minX - w2 / e2x));
+                else if (e2x < 0) right = Math.min(right, Math.floor(minX - w2 / e2x));
+                else if (w2 < 0) continue;
+                if (left > right) continue;
+
+                start = (int) left;
+                end = (int) right;
+                z += dz * (start - minX);
+                intensity += di * (start - minX);
+                specular += ds * (start - minX);
+            }
+
+            for (int x = start; x <= end; x++) {
+                // The span is covered as a whole, edge values are only stepped for the bounding box walk
+                if (scanline || (w0 >= 0 && w1 >= 0 && w2 >= 0)) {
+                    if (depthTestAndWrite(pixels, row, x, y, z, table, intensity, specular)) {
+                        ++written;
+                    } else {
+                        ++rejected; // Hidden by something drawn before, i.e. overdraw
+                    }
+                }
+
+                w0 += e0x;
+                w1 += e1x;
+                w2 += e2x;
+                z += dz;
+                intensity += di;
+                specular += ds;
+            }
+        }
+
+        return addPixels(written, rejected);
+    }
+
+    // Attribute a at edge values w, or its gradient for edge steps w
+    private static double interpolate(double w0, double w1, double w2, double a0, double a1, double a2,
+                                      double invArea) {
+        return (w0 * a0 + w1 * a1 + w2 * a2) * invArea;
+    }
+
+    // Depth test of one pixel, writing its depth and shade when it passes
+    private boolean depthTestAndWrite(int[] pixels, int row, int x, int y, double z,
+                                      ShadeTable table, double intensity, double specular) {
+        if (z >= zBuffer[row + x]) return false;
+        zBuffer[row + x] = (float) z;
+        setPixel(pixels, row + x, x, y, table.get(intensity, specular));
+        return true;
+    }
+
+    // pixels is this.pixels read once by the caller, p the index of (x, y) in it
+    private void setPixel(int[] pixels, int p, int x, int y, int rgb) {
+        if (pixels != null) {
+            pixels[p] = rgb;
+        } else {
+            buffer.setRGB(x, y, rgb);
+        }
+    }
+
+    // Count the pixels of one triangle in the stats, returns written
+    private int addPixels(int written, int rejected) {
+        RenderStats stats = this.stats;
+        if (stats != null) stats.addPixels(written, rejected);
+        return written;
+    }
+
+    private static boolean fitsFixedPoint(double x0, double y0, double x1, double y1, double x2, double y2) {
+        // Written so that NaN coordinates fail too
+        return Math.abs(x0) < FIXED_POINT_LIMIT && Math.abs(y0) < FIXED_POINT_LIMIT
+                && Math.abs(x1) < FIXED_POINT_LIMIT && Math.abs(y1) < FIXED_POINT_LIMIT
+                && Math.abs(x2) < FIXED_POINT_LIMIT && Math.abs(y2) < FIXED_POINT_LIMIT;
+    }
+
+    // Nearest 1/16 pixel, exact in a double
+    private static double snap(double v) {
+        return Math.round(v * SUBPIXELS) / (double) SUBPIXELS;
+    }
+
+    // Same as rasterizeTriangle, with vertices already snapped to 28.4 fixed point. Edge functions are exact
+    // longs in 1/256 pixel units. A pixel center exactly on an edge belongs to the triangle only when that is
+    // a top or a left edge, and the neighbour sharing the edge sees it the other way around.
+    private int rasterizeFixedPoint(
+            double x0, double y0, double x1, double y1, double x2, double y2,
+            double z0, double z1, double z2,
+            double i0, double i1, double i2,
+            double s0, double s1, double s2,
+            ShadeTable table,
+            int clipMinX, int clipMinY, int clipMaxX, int clipMaxY,
+            double zMin
+    ) {
+        long fx0 = Math.round(x0 * SUBPIXELS), fy0 = Math.round(y0 * SUBPIXELS);
+        long fx1 = Math.round(x1 * SUBPIXELS), fy1 = Math.round(y1 * SUBPIXELS);
+        long fx2 = Math.round(x2 * SUBPIXELS), fy2 = Math.round(y2 * SUBPIXELS);
+
+        long area = (fx2 - fx0) * (fy1 - fy0) - (fy2 - fy0) * (fx1 - fx0);
+        if (area <= 0) return 0;
+
+        // First and last pixel centers inside the bounds, ceil and floor of the fixed point values
+        int minX = (int) Math.max(clipMinX, (Math.min(fx0, Math.min(fx1, fx2)) + SUBPIXELS - 1) >> SUBPIXEL_BITS);
+        int maxX = (int) Math.min(clipMaxX, Math.max(fx0, Math.max(fx1, fx2)) >> SUBPIXEL_BITS);
+        int minY = (int) Math.max(clipMinY, (Math.min(fy0, Math.min(fy1, fy2)) + SUBPIXELS - 1) >> SUBPIXEL_BITS);
+        int maxY = (int) Math.min(clipMaxY, Math.max(fy0, Math.max(fy1, fy2)) >> SUBPIXEL_BITS);
+        if (minX > maxX || minY > maxY) return 0;
+
+        // Edge function increments for one pixel step along x and along y
+        long e0x = (fy2 - fy1) * SUBPIXELS, e0y = -(fx2 - fx1) * SUBPIXELS;
+        long e1x = (fy0 - fy2) * SUBPIXELS, e1y = -(fx0 - fx2) * SUBPIXELS;
+        long e2x = (fy1 - fy0) * SUBPIXELS, e2y = -(fx1 - fx0) * SUBPIXELS;
+
+        // Smallest value that still covers: 0 on top and left edges, 1 on the others
+        long t0 = isTopLeft(e0x, e0y) ? 0 : 1;
+        long t1 = isTopLeft(e1x, e1y) ? 0 : 1;
+        long t2 = isTopLeft(e2x, e2y) ? 0 : 1;
+
+        // Edges at the first pixel center of the bounds
+        long px = (long) minX << SUBPIXEL_BITS, py = (long) minY << SUBPIXEL_BITS;
+        long r0 = (px - fx1) * (fy2 - fy1) - (py - fy1) * (fx2 - fx1);
+        long r1 = (px - fx2) * (fy0 - fy2) - (py - fy2) * (fx0 - fx2);
+        long r2 = (px - fx0) * (fy1 - fy0) - (py - fy0) * (fx1 - fx0);
+
+        double invArea = 1.0 / area;
+        double dz = interpolate(e0x, e1x, e2x, z0, z1, z2, invArea);
+        double di = interpolate(e0x, e1x, e2x, i0, i1, i2, invArea);
+        double ds = interpolate(e0x, e1x, e2x, s0, s1, s2, invArea);
+
+        int[] pixels = this.pixels;
+        int written = 0, rejected = 0;
+
+        for (int y = minY; y <= maxY; y++) {
+            if (skipDepthRows(y, minY, minX, maxX, maxY, zMin)) {
+                y |= (1 << DEPTH_TILE_BITS) - 1;
+                continue;
+            }
 
-                double w0 = edgeFunction(p1, p2, p);
-                double w1 = edgeFunction(p2, p0, p);
-                double w2 = edgeFunction(p0, p1, p);
+            long w0 = r0 + (y - minY) * e0y, w1 = r1 + (y - minY) * e1y, w2 = r2 + (y - minY) * e2y;
+            int start = minX, end = maxX;
+
+            if (scanline) {
+                // Integer solve of each edge for the covered span, no pixel outside it is visited
+                int count = maxX - minX;
+                int first = 0, last = count;
+                if (e0x > 0) first = Math.max(first, (int) Math.min(count + 1, Math.max(0, ceilDiv(t0 - w0, e0x))));
+                else if (e0x < 0) last = Math.min(last, (int) Math.max(-1, Math.min(count, Math.floorDiv(w0 - t0, -e0x))));
+                else if (w0 < t0) continue;
+                if (e1x > 0) first = Math.max(first, (int) Math.min(count + 1, Math.max(0, ceilDiv(t1 - w1, e1x))));
+                else if (e1x < 0) last = Math.min(last, (int) Math.max(-1, Math.min(count, Math.floorDiv(w1 - t1, -e1x))));
+                else if (w1 < t1) continue;
+                if (e2x > 0) first = Math.max(first, (int) Math.min(count + 1, Math.max(0, ceilDiv(t2 - w2, e2x))));
+                else if (e2x < 0) last = Math.min(last, (int) Math.max(-1, Math.min(count, Math.floorDiv(w2 - t2, -e2x))));
+                else if (w2 < t2) continue;
+                if (first > last) continue;
+
+                start = minX + first;
+                end = minX + last;
+                w0 += first * e0x;
+                w1 += first * e1x;
+                w2 += first * e2x;
+            }
+
+            double z = interpolate(w0, w1, w2, z0, z1, z2, invArea);
+            double intensity = interpolate(w0, w1, w2, i0, i1, i2, invArea);
+            double specular = interpolate(w0, w1, w2, s0, s1, s2, invArea);
+            int row = y * width;
+
+            for (int x = start; x <= end; x++) {
+                if (w0 >= t0 && w1 >= t1 && w2 >= t2) {
+                    if (depthTestAndWrite(pixels, row, x, y, z, table, intensity, specular)) {
+                        ++written;
+                    } else {
+                        ++rejected;
+                    }
+                }
+
+                w0 += e0x;
+                w1 += e1x;
+                w2 += e2x;
+                z += dz;
+                intensity += di;
+                specular += ds;
+            }
+        }
+
+        return addPixels(written, rejected);
+    }
+
+    // Farthest a covered sample can be from the triangle, in pixels
+    double coverageReach() {
+        return multisampling ? SAMPLE_REACH : 0;
+    }
 
-                if (w0 >= 0 && w1 >= 0 && w2 >= 0) {
-                    w0 /= area;
-                    w1 /= area;
-                    w2 /= area;
+    // Rasterize with coverage and depth per sample. Shading is evaluated once at the pixel center, clamped
+    // as the center may lie outside the triangle when only some samples are covered.
+    private int rasterizeMultisampled(
+            double x0, double y0, double x1, double y1, double x2, double y2,
+            double z0, double z1, double z2,
+            double i0, double i1, double i2,
+            double s0, double s1, double s2,
+            ShadeTable table,
+            int clipMinX, int clipMinY, int clipMaxX, int clipMaxY,
+            double zMin
+    ) {
+        int minX = (int) Math.max(clipMinX, Math.ceil(min3(x0, x1, x2) - SAMPLE_REACH));
+        int maxX = (int) Math.min(clipMaxX, Math.floor(max3(x0, x1, x2) + SAMPLE_REACH));
+        int minY = (int) Math.max(clipMinY, Math.ceil(min3(y0, y1, y2) - SAMPLE_REACH));
+        int maxY = (int) Math.min(clipMaxY, Math.floor(max3(y0, y1, y2) + SAMPLE_REACH));
+
+        double area = edgeFunction(x0, y0, x1, y1, x2, y2);
+        if (area <= 0) return 0;
+        double invArea = 1 / area;
+
+        // Edge function increments for one pixel step along x and along y
+        double e0x = y2 - y1, e0y = x1 - x2;
+        double e1x = y0 - y2, e1y = x2 - x0;
+        double e2x = y1 - y0, e2y = x0 - x1;
+
+        // Edge function offsets of each sample from the pixel center
+        double e0s0 = e0x * SAMPLE_X[0] + e0y * SAMPLE_Y[0], e1s0 = e1x * SAMPLE_X[0] + e1y * SAMPLE_Y[0];
+        double e2s0 = e2x * SAMPLE_X[0] + e2y * SAMPLE_Y[0], e0s1 = e0x * SAMPLE_X[1] + e0y * SAMPLE_Y[1];
+        double e1s1 = e1x * SAMPLE_X[1] + e1y * SAMPLE_Y[1], e2s1 = e2x * SAMPLE_X[1] + e2y * SAMPLE_Y[1];
+        double e0s2 = e0x * SAMPLE_X[2] + e0y * SAMPLE_Y[2], e1s2 = e1x * SAMPLE_X[2] + e1y * SAMPLE_Y[2];
+        double e2s2 = e2x * SAMPLE_X[2] + e2y * SAMPLE_Y[2], e0s3 = e0x * SAMPLE_X[3] + e0y * SAMPLE_Y[3];
+        double e1s3 = e1x * SAMPLE_X[3] + e1y * SAMPLE_Y[3], e2s3 = e2x * SAMPLE_X[3] + e2y * SAMPLE_Y[3];
+
+        // Largest change of each edge function between the pixel center and any sample. A pixel is fully
+        // covered when every edge is at least that far inside, and has no sample covered when one edge
+        // is that far outside.
+        double r0 = (Math.abs(e0x) + Math.abs(e0y)) * SAMPLE_REACH;
+        double r1 = (Math.abs(e1x) + Math.abs(e1y)) * SAMPLE_REACH;
+        double r2 = (Math.abs(e2x) + Math.abs(e2y)) * SAMPLE_REACH;
+
+        double dz = interpolate(e0x, e1x, e2x, z0, z1, z2, invArea);
+        double dzy = interpolate(e0y, e1y, e2y, z0, z1, z2, invArea);
+        double di = interpolate(e0x, e1x, e2x, i0, i1, i2, invArea);
+        double ds = interpolate(e0x, e1x, e2x, s0, s1, s2, invArea);
+
+        // Depth offsets of each sample from the pixel center
+        double zs0 = dz * SAMPLE_X[0] + dzy * SAMPLE_Y[0], zs1 = dz * SAMPLE_X[1] + dzy * SAMPLE_Y[1];
+        double zs2 = dz * SAMPLE_X[2] + dzy * SAMPLE_Y[2], zs3 = dz * SAMPLE_X[3] + dzy * SAMPLE_Y[3];
+
+        float[] sampleDepth = this.sampleDepth;
+        int[] sampleColor = this.sampleColor;
+        int[] pixels = this.pixels;
+        int written = 0, rejected = 0;
 
-                    double z = w0 * z0 + w1 * z1 + w2 * z2;
-                    if (z < zBuffer[x][y]) {
-                        zBuffer[x][y] = (float) z;
+        for (int y = minY; y <= maxY; y++) {
+            if (skipDepthRows(y, minY, minX, maxX, maxY, zMin)) {
+                y |= (1 << DEPTH_TILE_BITS) - 1;
+                continue;
+            }
 
-                        double intensity = w0 * i0 + w1 * i1 + w2 * i2;
-                        double specular = w0 * s0 + w1 * s1 + w2 * s2;
+            double w0 = edgeFunction(x1, y1, x2, y2, minX, y);
+            double w1 = edgeFunction(x2, y2, x0, y0, minX, y);
+            double w2 = edgeFunction(x0, y0, x1, y1, minX, y);
+
+            // Pixels that may have a sample covered, widened by a pixel against rounding
+            double left = minX, right = maxX;
+            if (e0x > 0) left = Math.max(left, Math.floor(minX - (w0 + r0) / e0x));
+            else if (e0x < 0) right = Math.min(right, Math.ceil(minX - (w0 + r0) / e0x));
+            else if (w0 + r0 < 0) continue;
+            if (e1x > 0) left = Math.max(left, Math.floor(minX - (w1 + r1) / e1x));
+            else if (e1x < 0) right = Math.min(right, Math.ceil(minX - (w1 + r1) / e1x));
+            else if (w1 + r1 < 0) continue;
+            if (e2x > 0) left = Math.max(left, Math.floor(minX - (w2 + r2) / e2x));
+            else if (e2x < 0) right = Math.min(right, Math.ceil(minX - (w2 + r2) / e2x));
+            else if (w2 + r2 < 0) continue;
+            if (left > right) continue;
+
+            int start = (int) left, end = (int) right;
+            w0 += e0x * (start - minX);
+            w1 += e1x * (start - minX);
+            w2 += e2x * (start - minX);
+            double z = interpolate(w0, w1, w2, z0, z1, z2, invArea);
+            double intensity = interpolate(w0, w1, w2, i0, i1, i2, invArea);
+            double specular = interpolate(w0, w1, w2, s0, s1, s2, invArea);
+            int row = y * width;
+
+            for (int x = start; x <= end; x++) {
+                int mask = 0;
+                if (w0 >= r0 && w1 >= r1 && w2 >= r2) {
+                    mask = 15;
+                } else {
+                    if (w0 + e0s0 >= 0 && w1 + e1s0 >= 0 && w2 + e2s0 >= 0) mask |= 1;
+                    if (w0 + e0s1 >= 0 && w1 + e1s1 >= 0 && w2 + e2s1 >= 0) mask |= 2;
+                    if (w0 + e0s2 >= 0 && w1 + e1s2 >= 0 && w2 + e2s2 >= 0) mask |= 4;
+                    if (w0 + e0s3 >= 0 && w1 + e1s3 >= 0 && w2 + e2s3 >= 0) mask |= 8;
+                }
 
-                        this.color = shadeColor(baseColor, intensity, specular);
-                        drawPixel(x, y);
+                if (mask != 0) {
+                    int p = row + x, i = SAMPLES * p;
+                    int passed = 0;
+                    if ((mask & 1) != 0 && z + zs0 < sampleDepth[i]) {
+                        sampleDepth[i] = (float) (z + zs0);
+                        passed |= 1;
+                    }
+                    if ((mask & 2) != 0 && z + zs1 < sampleDepth[i + 1]) {
+                        sampleDepth[i + 1] = (float) (z + zs1);
+                        passed |= 2;
+                    }
+                    if ((mask & 4) != 0 && z + zs2 < sampleDepth[i + 2]) {
+                        sampleDepth[i + 2] = (float) (z + zs2);
+                        passed |= 4;
+                    }
+                    if ((mask & 8) != 0 && z + zs3 < sampleDepth[i + 3]) {
+                        sampleDepth[i + 3] = (float) (z + zs3);
+                        passed |= 8;
+                    }
+
+                    if (passed != 0) {
+                        int rgb = table.get(Math.min(INTENSITY_SCALE, Math.max(0, intensity)),
+                                Math.min(SPECULAR_SCALE, Math.max(0, specular)));
+                        if ((passed & 1) != 0) sampleColor[i] = rgb;
+                        if ((passed & 2) != 0) sampleColor[i + 1] = rgb;
+                        if ((passed & 4) != 0) sampleColor[i + 2] = rgb;
+                        if ((passed & 8) != 0) sampleColor[i + 3] = rgb;
+
+                        // Inside the triangle every sample passes at once, nothing to average
+                        if (passed != 15) {
+                            resolve(p, x, y);
+                        } else {
+                            setPixel(pixels, p, x, y, rgb);
+                        }
+                        ++written;
+                    } else {
+                        ++rejected;
                     }
                 }
+
+                w0 += e0x;
+                w1 += e1x;
+                w2 += e2x;
+                z += dz;
+                intensity += di;
+                specular += ds;
             }
         }
+
+        return addPixels(written, rejected);
+    }
+
+    // True when every depth tile over the rectangle is nearer than zMin, so no pixel in it can pass the depth test
+    private boolean isDepthOccluded(int minX, int minY, int maxX, int maxY, double zMin) {
+        for (int ty = minY >> DEPTH_TILE_BITS; ty <= maxY >> DEPTH_TILE_BITS; ty++) {
+            for (int tx = minX >> DEPTH_TILE_BITS; tx <= maxX >> DEPTH_TILE_BITS; tx++) {
+                int tile = ty * depthTilesX + tx;
+                if (zMin < depthTiles[tile]) {
+                    if (!depthTileStale[tile]) return false;
+                    refreshDepthTile(tx, ty);
+                    if (zMin < depthTiles[tile]) return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // On the first row of a tile row, whether the rows of the triangle up to the end of that tile row are hidden
+    private boolean skipDepthRows(int y, int minY, int minX, int maxX, int maxY, double zMin) {
+        if (Double.isNaN(zMin) || (y != minY && (y & (1 << DEPTH_TILE_BITS) - 1) != 0)) return false;
+        return isDepthOccluded(minX, y, maxX, Math.min(maxY, y | (1 << DEPTH_TILE_BITS) - 1), zMin);
+    }
+
+    // Farthest depth of the pixels of a tile. Tiles belong to a single rasterizing tile worker, as the worker
+    // tiles are whole numbers of depth tiles.
+    private void refreshDepthTile(int tx, int ty) {
+        int minX = tx << DEPTH_TILE_BITS, maxX = Math.min(width, minX + (1 << DEPTH_TILE_BITS));
+        int minY = ty << DEPTH_TILE_BITS, maxY = Math.min(height, minY + (1 << DEPTH_TILE_BITS));
+        float[] depth = multisampling ? sampleDepth : zBuffer;
+        int n = multisampling ? SAMPLES : 1;
+        float max = Float.NEGATIVE_INFINITY;
+        for (int y = minY; y < maxY; y++) {
+            for (int i = n * (y * width + minX); i < n * (y * width + maxX); i++) {
+                max = Math.max(max, depth[i]);
+            }
+        }
+        int tile = ty * depthTilesX + tx;
+        depthTiles[tile] = max;
+        depthTileStale[tile] = false;
+    }
+
+    // With front faces wound so that edge functions are positive inside and y growing downwards, a top edge
+    // is horizontal with the inside below it, a left edge has the inside to its right
+    private static boolean isTopLeft(long stepX, long stepY) {
+        return stepX > 0 || (stepX == 0 && stepY > 0);
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return -Math.floorDiv(-a, b);
+    }
+
+    // Built on first use of a color and kept, rasterizing tile workers may ask concurrently
+    private ShadeTable shadeTable(int baseRGB) {
+        return shadeTables.computeIfAbsent(baseRGB, ShadeTable::new);
     }
 
-    private double edgeFunction(Point2D a, Point2D b, Point2D c) {
-        return (c.x() - a.x()) * (b.y() - a.y()) - (c.y() - a.y()) * (b.x() - a.x());
+    private double edgeFunction(double ax, double ay, double bx, double by, double cx, double cy) {
+        return (cx - ax) * (by - ay) - (cy - ay) * (bx - ax);
     }
 
     public void drawSolidShape(SolidShape shape, boolean stickers) {
-        List<Face3D> faces = shape.getFaces();
-        for (Face3D face : faces) {
+        drawSolidShape(shape, shape.getTransformation(), stickers);
+    }
+
+    // Draw shape as if its transformation was transform, only reading the shape so that several
+    // Janim3D instances can draw the same shapes at once
+    public void drawSolidShape(SolidShape shape, Mat4 transform, boolean stickers) {
+        drawSolidShape(shape, transform, null, null, stickers);
+    }
+
+    // With a non null color every face gets it instead of the shape's face color, with non null visible only
+    // the faces set in it are drawn
+    private void drawSolidShape(SolidShape shape, Mat4 transform, Color color, boolean[] visible,
+                                boolean stickers) {
+        if (tiled && (binner == null || !binner.fits(width, height))) {
+            binner = new TileBinner(this, width, height, ForkJoinPool.commonPool());
+        }
+
+        if (!isInView(bounds, shape.getBoundingSphere(transform, bounds))) {
+            if (stats != null) stats.culledShapes++;
+            return;
+        }
+
+        long start = stageStart();
+        Mesh mesh = shape.getMesh();
+        double[] world = transformVertices(mesh, transform);
+        stageEnd(RenderStats.Stage.TESSELLATION, start);
+
+        start = stageStart();
+        double[] xy = screenBuffer(mesh.vertexCount());
+        double[] xyw = homogeneousBuffer(mesh.vertexCount());
+        projectToScreen(world, mesh.vertexCount(), xy, xyw);
+        stageEnd(RenderStats.Stage.PROJECTION, start);
+
+        start = stageStart();
+        prepareLighting(mesh, world);
+        stageEnd(RenderStats.Stage.LIGHTING, start);
+        if (stats != null) stats.faces += mesh.faceCount();
+
+        int[] faces = mesh.getFaces();
+        int[] order = hierarchicalDepth ? depthOrder(world, faces) : null;
+        boolean twoSided = shape.isTwoSided();
+        for (int f = 0; f < mesh.faceCount(); ++f) {
+            int k = 4 * (order != null ? order[f] : f);
+            if (visible != null && !visible[k / 4]) {
+                if (stats != null) stats.culledFaces++;
+                continue;
+            }
+            int a = faces[k], b = faces[k + 1], c = faces[k + 2], d = faces[k + 3];
+
+            // Faces wound clockwise on screen are seen from behind, the rasterizer would reject both triangles
+            if (isBackFacing(xy, xyw, a, b, c, d)) {
+                if (twoSided) {
+                    // Reverse the winding, which also flips the normal towards the camera
+                    int t = b;
+                    b = d;
+                    d = t;
+                } else if (backFaceCulling) {
+                    if (stats != null) stats.culledFaces++;
+                    continue;
+                }
+            }
+            Color faceColor = color != null ? color : shape.getFaceColor(k / 4);
+
             if (stickers) {
                 // Background
-                drawFilled3DQuad(face, new Color(10, 10, 10), false);
-
-                // Sticker...;
-                drawFilled3DQuad(
-                        new Face3D(shrinkQuad(face.getVertices()), face.getColor()),
-                        face.getColor(),
-                        true
-                );
+                drawFilled3DQuad(world, xy, xyw, a, b, c, d, STICKER_BACKGROUND, false, true);
+
+                // Sticker, from the inset face cached with the mesh
+                stickerCorners(mesh.getInsetFaces(), k / 4, transform, b != faces[k + 1]);
+                double[] cornersXYW = xyw != null ? stickerXYW : null;
+                projectToScreen(stickerWorld, 4, stickerXY, cornersXYW);
+                drawFilled3DQuad(stickerWorld, stickerXY, cornersXYW, 0, 1, 2, 3, faceColor.getRGB(), true, false);
             } else {
-                drawFilled3DQuad(face, face.getColor(), false);
+                drawFilled3DQuad(world, xy, xyw, a, b, c, d, faceColor.getRGB(), false, true);
             }
         }
+
+        if (tiled) {
+            start = stageStart();
+            binner.flush();
+            stageEnd(RenderStats.Stage.RASTERIZATION, start);
+        }
     }
 
-    private Point3D[] shrinkQuad(Point3D[] quad) {
-        double cx = 0, cy = 0, cz = 0;
-        for (Point3D p : quad) {
-            cx += p.x();
-            cy += p.y();
-            cz += p.z();
+    // Both triangles of the quad wound clockwise on screen. A vertex too close to or behind the eye has no
+    // usable screen position, the facing then comes from the homogeneous coordinates.
+    private boolean isBackFacing(double[] xy, double[] xyw, int a, int b, int c, int d) {
+        if (xyw != null && (xyw[3*a + 2] < ClipSpace.NEAR || xyw[3*b + 2] < ClipSpace.NEAR
+                || xyw[3*c + 2] < ClipSpace.NEAR || xyw[3*d + 2] < ClipSpace.NEAR)) {
+            return ClipSpace.orientation(xyw, a, b, c) <= 0 && ClipSpace.orientation(xyw, a, c, d) <= 0;
         }
-        cx /= quad.length;
-        cy /= quad.length;
-        cz /= quad.length;
+        return edgeFunction(xy[2*a], xy[2*a + 1], xy[2*b], xy[2*b + 1], xy[2*c], xy[2*c + 1]) <= 0 &&
+                edgeFunction(xy[2*a], xy[2*a + 1], xy[2*c], xy[2*c + 1], xy[2*d], xy[2*d + 1]) <= 0;
+    }
 
-        Point3D center = new Point3D(cx, cy, cz);
+    // Face indices sorted by their nearest vertex depth, so near faces fill the depth tiles first
+    private int[] depthOrder(double[] world, int[] faces) {
+        int count = faces.length / 4;
+        if (faceKeys.length < count) {
+            faceKeys = new long[count];
+            faceOrder = new int[count];
+        }
 
-        Point3D[] shrunken = new Point3D[quad.length];
-        for (int i = 0; i < quad.length; i++) {
-            Vector3D dir = new Vector3D(center, quad[i]);
-            dir.scale(0.85);
+        for (int f = 0; f < count; ++f) {
+            double z = Math.min(Math.min(world[3*faces[4*f] + 2], world[3*faces[4*f + 1] + 2]),
+                    Math.min(world[3*faces[4*f + 2] + 2], world[3*faces[4*f + 3] + 2]));
+            faceKeys[f] = (long) sortableDepth(z) << 32 | f;
+        }
+        Arrays.sort(faceKeys, 0, count);
 
-            // Move slightly forward in the face's normal direction to avoid z-fighting
-            Vector3D faceNormal = getQuadNormal(quad);
-            faceNormal.normalize();
-            shrunken[i] = new Point3D(
-                    center.x() + dir.x() - faceNormal.x() * 0.01,
-                    center.y() + dir.y() - faceNormal.y() * 0.01,
-                    center.z() + dir.z() - faceNormal.z() * 0.01
-            );
+        for (int f = 0; f < count; ++f) {
+            faceOrder[f] = (int) faceKeys[f];
         }
+        return faceOrder;
+    }
 
-        return shrunken;
+    // Float bits flipped so that comparing the ints orders the depths, negative ones included
+    private static int sortableDepth(double z) {
+        int bits = Float.floatToIntBits((float) z);
+        return bits ^ (bits >> 31 & 0x7FFFFFFF);
     }
 
-    private Vector3D getQuadNormal(Point3D[] quad) {
-        // Assume convex quad, use first triangle for normal
-        Vector3D u = new Vector3D(quad[0], quad[1]);
-        Vector3D v = new Vector3D(quad[0], quad[3]);
-        return u.cross(v);
+    // Draw every shape with its own transformation, nearest first when hierarchical depth is on
+    public void drawSolidShapes(List<? extends SolidShape> shapes, boolean stickers) {
+        if (!hierarchicalDepth) {
+            for (SolidShape shape : shapes) {
+                drawSolidShape(shape, stickers);
+            }
+            return;
+        }
+
+        long[] keys = new long[shapes.size()];
+        for (int i = 0; i < keys.length; ++i) {
+            SolidShape shape = shapes.get(i);
+            keys[i] = depthKey(shape, shape.getTransformation(), i);
+        }
+        Arrays.sort(keys);
+
+        for (long key : keys) {
+            drawSolidShape(shapes.get((int) key), stickers);
+        }
+    }
+
+    // Draw the one mesh of shape once per instance, so shared geometry is tessellated once however many
+    // times it is placed. Nearest first when hierarchical depth is on.
+    public void drawInstances(SolidShape shape, List<Instance> instances, boolean stickers) {
+        if (!hierarchicalDepth) {
+            for (Instance instance : instances) {
+                drawSolidShape(shape, instance.transform(), instance.color(), instance.faces(), stickers);
+            }
+            return;
+        }
+
+        long[] keys = new long[instances.size()];
+        for (int i = 0; i < keys.length; ++i) {
+            keys[i] = depthKey(shape, instances.get(i).transform(), i);
+        }
+        Arrays.sort(keys);
+
+        for (long key : keys) {
+            Instance instance = instances.get((int) key);
+            drawSolidShape(shape, instance.transform(), instance.color(), instance.faces(), stickers);
+        }
+    }
+
+    // Nearest depth of the bounding sphere of shape under transform in the high half, index in the low half
+    private long depthKey(SolidShape shape, Mat4 transform, int index) {
+        double radius = shape.getBoundingSphere(transform, bounds);
+        return (long) sortableDepth(bounds[2] - radius) << 32 | index;
+    }
+
+    // World corners of the sticker of face f into stickerWorld, lifted off the face towards its front. A reversed
+    // face is drawn from behind as a, d, c, b, and its front is then the other side.
+    private void stickerCorners(Mesh.InsetFaces inset, int f, Mat4 transform, boolean reversed) {
+        double[] corners = inset.vertices(), normals = inset.normals();
+        double lift = reversed ? STICKER_LIFT : -STICKER_LIFT;
+        double lx = lift * normals[3*f], ly = lift * normals[3*f + 1], lz = lift * normals[3*f + 2];
+        for (int i = 0; i < 4; ++i) {
+            int o = 12*f + 3 * (reversed ? (4 - i) % 4 : i);
+            stickerLocal[3*i] = corners[o] + lx;
+            stickerLocal[3*i + 1] = corners[o + 1] + ly;
+            stickerLocal[3*i + 2] = corners[o + 2] + lz;
+        }
+        transform.transformPoints(stickerLocal, stickerWorld, 4);
     }
 
     // Cohen–Sutherland clipping
@@ -457,6 +1856,4 @@ public class Janim3D {
         else if (y >= height) code |= BOTTOM;
         return code;
     }
-
-    public record Shading(double intensity, double specular) {}
 }
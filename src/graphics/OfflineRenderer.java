@@ -0,0 +1,108 @@
+package graphics;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Renders a timeline without any window at a fixed frame rate. Frames are handed to an encoder thread,
+// so frame N is written to the sink while frame N+1 renders.
+public class OfflineRenderer {
+    private static final int BUFFERS = 2;
+    private static final int DONE = -1;
+
+    private final Janim3D janim;
+    private final int fps;
+    private final BufferedImage[] images = new BufferedImage[BUFFERS];
+    private final DirtyRect[] dirty = new DirtyRect[BUFFERS];
+
+    public OfflineRenderer(Janim3D janim, int fps) {
+        this.janim = janim;
+        this.fps = fps;
+
+        for (int i = 0; i < BUFFERS; ++i) {
+            images[i] = new BufferedImage(janim.getWidth(), janim.getHeight(), BufferedImage.TYPE_INT_ARGB);
+            dirty[i] = new DirtyRect();
+            dirty[i].set(0, 0, janim.getWidth() - 1, janim.getHeight() - 1);
+        }
+    }
+
+    public int getFps() {
+        return fps;
+    }
+
+    // Render frames 0 to frameCount - 1 into sink, which is left open
+    public void render(Timeline timeline, int frameCount, FrameSink sink) throws IOException {
+        BlockingQueue<Integer> free = new ArrayBlockingQueue<>(BUFFERS);
+        BlockingQueue<Integer> rendered = new ArrayBlockingQueue<>(BUFFERS + 1);
+        for (int i = 0; i < BUFFERS; ++i) {
+            free.add(i);
+        }
+
+        Encoder encoder = new Encoder(sink, free, rendered);
+        Thread thread = new Thread(encoder, "janim-encoder");
+        thread.start();
+
+        try {
+            try {
+                for (int frame = 0; frame < frameCount && encoder.error == null; ++frame) {
+                    int buffer = free.take();
+                    janim.setTarget(images[buffer], dirty[buffer]);
+                    janim.beginFrame();
+                    janim.clear();
+                    janim.clearZBuffer();
+                    timeline.renderFrame(janim, frame, frame / (double) fps);
+                    janim.endFrame();
+                    rendered.put(buffer);
+                }
+            } finally {
+                // Also lets the encoder finish when the timeline throws
+                rendered.put(DONE);
+            }
+            thread.join();
+        } catch (InterruptedException e) {
+            thread.interrupt();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Rendering interrupted");
+        }
+
+        if (encoder.error instanceof IOException e) {
+            throw e;
+        } else if (encoder.error instanceof RuntimeException e) {
+            throw e;
+        }
+    }
+
+    private class Encoder implements Runnable {
+        private final FrameSink sink;
+        private final BlockingQueue<Integer> free;
+        private final BlockingQueue<Integer> rendered;
+        private volatile Exception error;
+
+        Encoder(FrameSink sink, BlockingQueue<Integer> free, BlockingQueue<Integer> rendered) {
+            this.sink = sink;
+            this.free = free;
+            this.rendered = rendered;
+        }
+
+        @Override
+        public void run() {
+            try {
+                int buffer;
+                while ((buffer = rendered.take()) != DONE) {
+                    // After a failure keep recycling buffers so the renderer can stop cleanly
+                    if (error == null) {
+                        try {
+                            sink.write(images[buffer]);
+                        } catch (IOException | RuntimeException e) {
+                            error = e;
+                        }
+                    }
+                    free.put(buffer);
+                }
+            } catch (InterruptedException ignored) {
+            }
+        }
+    }
+}
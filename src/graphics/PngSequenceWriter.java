@@ -0,0 +1,33 @@
+package graphics;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+// Writes every frame as prefix00000.png, prefix00001.png, ... into a directory
+public class PngSequenceWriter implements FrameSink {
+    private final File directory;
+    private final String prefix;
+    private int index = 0;
+
+    public PngSequenceWriter(File directory, String prefix) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory " + directory);
+        }
+        this.directory = directory;
+        this.prefix = prefix;
+    }
+
+    @Override
+    public void write(BufferedImage frame) throws IOException {
+        File file = new File(directory, String.format("%s%05d.png", prefix, index++));
+        if (!ImageIO.write(frame, "png", file)) {
+            throw new IOException("No PNG writer available");
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,148 @@
+package graphics;
+
+import javax.swing.Timer;
+import java.awt.image.BufferedImage;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Renders frames on a dedicated thread into a back buffer while the UI presents the previous frame.
+// Three buffers rotate between the renderer (back), the latest finished frame (ready) and the
+// presenter (front), so neither side ever waits for the other or sees a half drawn image.
+// Scene state belongs to the render thread, the UI changes it through invokeLater, or on a schedule through timer.
+public class RenderLoop {
+    private static final int FRESH = 4; // Set while the ready buffer holds a frame not yet presented
+    private static final int INDEX = 3;
+
+    private final Janim3D janim;
+    private final Runnable scene;
+    private final Runnable onFrame;
+    private final Consumer<RuntimeException> onError;
+    private final BufferedImage[] images = new BufferedImage[3];
+    private final DirtyRect[] dirty = new DirtyRect[3];
+
+    private final AtomicInteger ready = new AtomicInteger(1);
+    private int back = 0;  // Owned by the render thread
+    private int front = 2; // Owned by the presenting thread
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Object signal = new Object();
+    private boolean frameRequested;
+    private volatile boolean running;
+    private volatile RuntimeException failure; // Stopped the loop, thrown to the presenting thread
+    private Thread thread;
+
+    // scene draws one frame into janim, onFrame is called after every finished frame (e.g. repaint).
+    // A frame whose scene or task throws stops the loop, getFrontBuffer() then throws.
+    public RenderLoop(Janim3D janim, Runnable scene, Runnable onFrame) {
+        this(janim, scene, onFrame, null);
+    }
+
+    // Same, but failed frames are dropped and passed to onError on the render thread, and the loop goes on
+    public RenderLoop(Janim3D janim, Runnable scene, Runnable onFrame, Consumer<RuntimeException> onError) {
+        this.janim = janim;
+        this.scene = scene;
+        this.onFrame = onFrame;
+        this.onError = onError;
+
+        for (int i = 0; i < 3; ++i) {
+            images[i] = new BufferedImage(janim.getWidth(), janim.getHeight(), BufferedImage.TYPE_INT_ARGB);
+            dirty[i] = new DirtyRect();
+            dirty[i].set(0, 0, janim.getWidth() - 1, janim.getHeight() - 1);
+        }
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        failure = null;
+        running = true;
+        thread = new Thread(this::run, "janim-render");
+        thread.setDaemon(true);
+        thread.start();
+        requestFrame();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+    }
+
+    // Schedule a new frame, requests made while a frame is rendering are merged into one
+    public void requestFrame() {
+        synchronized (signal) {
+            frameRequested = true;
+            signal.notifyAll();
+        }
+    }
+
+    // Run task on the render thread before the next frame, scene state should only be changed this way
+    public void invokeLater(Runnable task) {
+        tasks.add(task);
+        requestFrame();
+    }
+
+    // Swing timer whose ticks run tick on the render thread, ticks still queued after stop() are dropped
+    public Timer timer(int delay, Runnable tick) {
+        Timer timer = new Timer(delay, null);
+        timer.addActionListener(e -> invokeLater(() -> {
+            if (timer.isRunning()) tick.run();
+        }));
+        return timer;
+    }
+
+    // Latest finished frame, to be called from the presenting thread only
+    public BufferedImage getFrontBuffer() {
+        RuntimeException e = failure;
+        if (e != null) {
+            throw new IllegalStateException("Render loop stopped, frame failed", e);
+        }
+        if ((ready.get() & FRESH) != 0) {
+            front = ready.getAndSet(front) & INDEX;
+        }
+        return images[front];
+    }
+
+    private void run() {
+        while (running) {
+            synchronized (signal) {
+                while (!frameRequested && running) {
+                    try {
+                        signal.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                frameRequested = false;
+            }
+            if (!running) return;
+
+            try {
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+
+                janim.setTarget(images[back], dirty[back]);
+                janim.beginFrame();
+                scene.run();
+                janim.endFrame();
+            } catch (RuntimeException e) {
+                if (onError == null) {
+                    failure = e;
+                    running = false;
+                    onFrame.run(); // Lets the presenter find out
+                    return;
+                }
+                onError.accept(e);
+                continue;
+            }
+
+            // Publish the back buffer and take the previous ready one as the next back buffer
+            back = ready.getAndSet(back | FRESH) & INDEX;
+            onFrame.run();
+        }
+    }
+}
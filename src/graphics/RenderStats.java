@@ -0,0 +1,108 @@
+package graphics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per frame timings and geometry counts of one Janim3D, with rolling averages and percentiles over the last
+// frames. Written by the rendering thread, getSummary() may be read from any thread.
+public class RenderStats {
+    public enum Stage { CLEAR, TESSELLATION, PROJECTION, LIGHTING, RASTERIZATION }
+
+    private static final int STAGES = Stage.values().length;
+
+    // One finished frame, times in nanoseconds
+    public record Frame(long frameNanos, long[] stageNanos, long lines, long faces, long triangles,
+                        long culledFaces, long culledShapes, long pixelsWritten, long depthRejects) {
+        public long stageNanos(Stage stage) {
+            return stageNanos[stage.ordinal()];
+        }
+    }
+
+    // Rolling view over the last frames, times in milliseconds
+    public record Summary(Frame last, int frames, double averageMillis, double p50Millis, double p95Millis,
+                          double p99Millis, double[] averageStageMillis, double averagePixels,
+                          double averageDepthRejects) {
+        public double averageStageMillis(Stage stage) {
+            return averageStageMillis[stage.ordinal()];
+        }
+
+        public double fps() {
+            return averageMillis > 0 ? 1000 / averageMillis : 0;
+        }
+    }
+
+    // Current frame
+    private long frameStart;
+    private final long[] stageNanos = new long[STAGES];
+    long lines, faces, triangles, culledFaces, culledShapes;
+    private final LongAdder pixelsWritten = new LongAdder(); // Tile workers rasterize concurrently
+    private final LongAdder depthRejects = new LongAdder();
+
+    // Last frames, ring buffer
+    private final Frame[] history;
+    private int next = 0;
+    private int count = 0;
+    private volatile Summary summary;
+
+    public RenderStats(int window) {
+        history = new Frame[window];
+    }
+
+    void beginFrame() {
+        Arrays.fill(stageNanos, 0);
+        lines = faces = triangles = culledFaces = culledShapes = 0;
+        pixelsWritten.reset();
+        depthRejects.reset();
+        frameStart = System.nanoTime();
+    }
+
+    void addTime(Stage stage, long nanos) {
+        stageNanos[stage.ordinal()] += nanos;
+    }
+
+    void addPixels(long written, long rejected) {
+        pixelsWritten.add(written);
+        depthRejects.add(rejected);
+    }
+
+    void endFrame() {
+        Frame frame = new Frame(System.nanoTime() - frameStart, stageNanos.clone(), lines, faces, triangles,
+                culledFaces, culledShapes, pixelsWritten.sum(), depthRejects.sum());
+        history[next] = frame;
+        next = (next + 1) % history.length;
+        count = Math.min(count + 1, history.length);
+        summary = summarize(frame);
+    }
+
+    private Summary summarize(Frame last) {
+        double[] millis = new double[count];
+        double[] stages = new double[STAGES];
+        double pixels = 0, rejects = 0;
+        for (int i = 0; i < count; ++i) {
+            Frame frame = history[i];
+            millis[i] = frame.frameNanos() / 1e6;
+            for (int s = 0; s < STAGES; ++s) {
+                stages[s] += frame.stageNanos()[s] / 1e6 / count;
+            }
+            pixels += frame.pixelsWritten() / (double) count;
+            rejects += frame.depthRejects() / (double) count;
+        }
+
+        double average = Arrays.stream(millis).average().orElse(0);
+        Arrays.sort(millis);
+        return new Summary(last, count, average, percentile(millis, 50), percentile(millis, 95),
+                percentile(millis, 99), stages, pixels, rejects);
+    }
+
+    // Nearest rank percentile of sorted values
+    private static double percentile(double[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p / 100 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    // Latest summary, null before the first finished frame
+    public Summary getSummary() {
+        return summary;
+    }
+}
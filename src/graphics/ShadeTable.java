@@ -0,0 +1,40 @@
+package graphics;
+
+// Packed ARGB of one base color for every quantized (intensity, specular) pair, so shading a pixel is a table read
+class ShadeTable {
+    static final int INTENSITY_LEVELS = 256;
+    static final int SPECULAR_LEVELS = 64;
+
+    private final int[] rgb = new int[INTENSITY_LEVELS * SPECULAR_LEVELS];
+
+    ShadeTable(int baseRGB) {
+        int baseR = (baseRGB >> 16) & 0xFF;
+        int baseG = (baseRGB >> 8) & 0xFF;
+        int baseB = baseRGB & 0xFF;
+
+        for (int i = 0; i < INTENSITY_LEVELS; ++i) {
+            double intensity = i / (double) (INTENSITY_LEVELS - 1);
+            for (int s = 0; s < SPECULAR_LEVELS; ++s) {
+                double specular = s / (double) (SPECULAR_LEVELS - 1);
+                rgb[i * SPECULAR_LEVELS + s] = shadeRGB(baseR, baseG, baseB, intensity, specular);
+            }
+        }
+    }
+
+    // Intensity and specular pre-scaled to [0, INTENSITY_LEVELS-1] and [0, SPECULAR_LEVELS-1]
+    int get(double intensity, double specular) {
+        return rgb[(int) (intensity + 0.5) * SPECULAR_LEVELS + (int) (specular + 0.5)];
+    }
+
+    // Opaque packed ARGB of the shaded base color
+    private static int shadeRGB(int baseR, int baseG, int baseB, double intensity, double specular) {
+        int r = clamp((int)(baseR * intensity + 255 * specular));
+        int g = clamp((int)(baseG * intensity + 255 * specular));
+        int b = clamp((int)(baseB * intensity + 255 * specular));
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+
+    private static int clamp(int val) {
+        return Math.max(0, Math.min(255, val));
+    }
+}
@@ -0,0 +1,7 @@
+package graphics;
+
+// Scene recorded frame by frame for BatchRenderer, frames are requested in increasing order
+public interface SnapshotTimeline {
+    // Advance the scene to frame (time seconds since the start) and record what it draws
+    FrameSnapshot snapshot(int frame, double time);
+}
@@ -0,0 +1,152 @@
+package graphics;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Collects screen space triangles, bins them into tiles and rasterizes the tiles in parallel.
+// Every tile only touches its own rectangle of the z-buffer and color buffer, so no locking is needed.
+class TileBinner {
+    static final int TILE_SIZE = 64;
+
+    // x0, y0, x1, y1, x2, y2, z0, z1, z2, i0, i1, i2, s0, s1, s2
+    private static final int STRIDE = 15;
+
+    private final Janim3D janim;
+    private final ForkJoinPool pool;
+    private final int width;
+    private final int height;
+    private final int tilesX;
+    private final int tilesY;
+
+    private double[] data = new double[STRIDE * 256];
+    private int[] colors = new int[256];
+    private int count;
+
+    private final int[][] bins;
+    private final int[] binSizes;
+
+    TileBinner(Janim3D janim, int width, int height, ForkJoinPool pool) {
+        this.janim = janim;
+        this.pool = pool;
+        this.width = width;
+        this.height = height;
+        this.tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        this.tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+        this.bins = new int[tilesX * tilesY][16];
+        this.binSizes = new int[tilesX * tilesY];
+    }
+
+    boolean fits(int width, int height) {
+        return this.width == width && this.height == height;
+    }
+
+    void add(double x0, double y0, double x1, double y1, double x2, double y2,
+             double z0, double z1, double z2,
+             double i0, double i1, double i2,
+             double s0, double s1, double s2,
+             int baseRGB) {
+        if (count == colors.length) {
+            data = Arrays.copyOf(data, 2 * data.length);
+            colors = Arrays.copyOf(colors, 2 * colors.length);
+        }
+
+        int o = count * STRIDE;
+        data[o]      = x0; data[o + 1]  = y0;
+        data[o + 2]  = x1; data[o + 3]  = y1;
+        data[o + 4]  = x2; data[o + 5]  = y2;
+        data[o + 6]  = z0; data[o + 7]  = z1; data[o + 8]  = z2;
+        data[o + 9]  = i0; data[o + 10] = i1; data[o + 11] = i2;
+        data[o + 12] = s0; data[o + 13] = s1; data[o + 14] = s2;
+        colors[count] = baseRGB;
+
+        bin(count);
+        count++;
+    }
+
+    private void bin(int triangle) {
+        int o = triangle * STRIDE;
+        double minX = Math.min(data[o], Math.min(data[o + 2], data[o + 4]));
+        double maxX = Math.max(data[o], Math.max(data[o + 2], data[o + 4]));
+        double minY = Math.min(data[o + 1], Math.min(data[o + 3], data[o + 5]));
+        double maxY = Math.max(data[o + 1], Math.max(data[o + 3], data[o + 5]));
+
+        double reach = janim.coverageReach();
+        int x0 = (int) Math.max(0, Math.ceil(minX - reach));
+        int x1 = (int) Math.min(width - 1, Math.floor(maxX + reach));
+        int y0 = (int) Math.max(0, Math.ceil(minY - reach));
+        int y1 = (int) Math.min(height - 1, Math.floor(maxY + reach));
+        if (x0 > x1 || y0 > y1) return; // Off-screen or no pixel centers or samples covered
+
+        for (int ty = y0 / TILE_SIZE; ty <= y1 / TILE_SIZE; ty++) {
+            for (int tx = x0 / TILE_SIZE; tx <= x1 / TILE_SIZE; tx++) {
+                int tile = ty * tilesX + tx;
+                if (binSizes[tile] == bins[tile].length) {
+                    bins[tile] = Arrays.copyOf(bins[tile], 2 * bins[tile].length);
+                }
+                bins[tile][binSizes[tile]++] = triangle;
+            }
+        }
+    }
+
+    // Rasterizes all pending triangles, keeping submission order inside each tile
+    void flush() {
+        if (count == 0) return;
+
+        pool.invoke(new TileTask(this, 0, bins.length));
+
+        Arrays.fill(binSizes, 0);
+        count = 0;
+    }
+
+    private void rasterizeTile(int tile) {
+        int size = binSizes[tile];
+        if (size == 0) return;
+
+        int minX = (tile % tilesX) * TILE_SIZE;
+        int minY = (tile / tilesX) * TILE_SIZE;
+        int maxX = Math.min(width, minX + TILE_SIZE) - 1;
+        int maxY = Math.min(height, minY + TILE_SIZE) - 1;
+
+        int[] bin = bins[tile];
+        for (int k = 0; k < size; k++) {
+            int o = bin[k] * STRIDE;
+            janim.rasterizeTriangle(
+                    data[o], data[o + 1], data[o + 2], data[o + 3], data[o + 4], data[o + 5],
+                    data[o + 6], data[o + 7], data[o + 8],
+                    data[o + 9], data[o + 10], data[o + 11],
+                    data[o + 12], data[o + 13], data[o + 14],
+                    colors[bin[k]],
+                    minX, minY, maxX, maxY
+            );
+        }
+    }
+
+    // Splits a range of tiles down to single tiles
+    private static class TileTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient TileBinner binner;
+        private final int from;
+        private final int to;
+
+        TileTask(TileBinner binner, int from, int to) {
+            this.binner = binner;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                for (int tile = from; tile < to; tile++) {
+                    binner.rasterizeTile(tile);
+                }
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(new TileTask(binner, from, mid), new TileTask(binner, mid, to));
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package graphics;
+
+// Scene driven by frame number instead of wall clock time, frames are requested in increasing order
+public interface Timeline {
+    // Advance the scene to frame (time seconds since the start) and draw it into the already cleared janim
+    void renderFrame(Janim3D janim, int frame, double time);
+}
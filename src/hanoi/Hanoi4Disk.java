@@ -2,26 +2,30 @@ package hanoi;
 
 import geometry.SolidShape;
 import geometry.Surface3D;
+import graphics.FrameSnapshot;
+import graphics.Instance;
 import graphics.Janim3D;
+import math.Mat4;
 
 import java.awt.Color;
+import java.util.List;
 
 public class Hanoi4Disk {
+    // Every disk has its own main radius, so its own mesh. The pegs share one.
     private final Surface3D[] disks;
-    private final Peg[] pegs;
+    private final Peg peg = new Peg();
+    private final List<Instance> pegs;
 
     public Hanoi4Disk() {
         disks = new Surface3D[] {
                 new Surface3D(), new Surface3D(), new Surface3D(), new Surface3D()
         };
 
-        pegs = new Peg[] {
-                new Peg(), new Peg(), new Peg()
-        };
-
-        pegs[0].translate(50, -10, 0);
-        pegs[1].translate(0, -10, 0);
-        pegs[2].translate(-50, -10, 0);
+        pegs = List.of(
+                new Instance(Mat4.translation(50, -10, 0)),
+                new Instance(Mat4.translation(0, -10, 0)),
+                new Instance(Mat4.translation(-50, -10, 0))
+        );
 
         disks[3].setMainR(15);
         disks[3].setColor(new Color(9,147,209,255));
@@ -48,13 +52,20 @@ public class Hanoi4Disk {
         disks[diskIndex].translate(dx, dy, dz);
     }
 
+    // Record the current state for BatchRenderer
+    public void snapshot(FrameSnapshot snapshot) {
+        for (SolidShape disk : disks) {
+            snapshot.drawSolidShape(disk, false);
+        }
+
+        snapshot.drawInstances(peg, pegs, false);
+    }
+
     public void draw(Janim3D janim) {
         for (SolidShape disk : disks) {
             janim.drawSolidShape(disk, false);
         }
 
-        for (Peg peg : pegs) {
-            janim.drawSolidShape(peg, false);
-        }
+        janim.drawInstances(peg, pegs, false);
     }
 }
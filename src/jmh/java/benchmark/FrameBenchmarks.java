@@ -0,0 +1,87 @@
+package benchmark;
+
+import geometry.Point3D;
+import geometry.Vector3D;
+import graphics.Janim3D;
+import hanoi.Hanoi4Disk;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import rubik.Rubik3x3x3;
+
+import java.util.concurrent.TimeUnit;
+
+// Full Rubik and Hanoi frames at 1000x1000 under every rasterizer configuration. Tiled modes rasterize on worker
+// threads, run with -prof gc to include their allocation.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class FrameBenchmarks {
+    @State(Scope.Thread)
+    public static class Modes {
+        @Param({"plain", "tiled", "scanline", "scanline.tiled", "fixed", "fixed.scanline", "hiz",
+                "fixed.scanline.hiz", "msaa", "msaa.hiz"})
+        public String mode;
+
+        private final Rubik3x3x3 cube = new Rubik3x3x3(10, 10);
+        private final Hanoi4Disk hanoi = new Hanoi4Disk();
+        private Janim3D rubikJanim;
+        private Janim3D hanoiJanim;
+
+        @Setup
+        public void setup() {
+            cube.rotate(0.5, 'x');
+            cube.rotate(0.5, 'y');
+            rubikJanim = Scenes.rubikJanim();
+            Scenes.setMode(rubikJanim, mode);
+            hanoiJanim = Scenes.hanoiJanim();
+            Scenes.setMode(hanoiJanim, mode);
+        }
+    }
+
+    // Camera among the disks, with geometry crossing the near plane
+    @State(Scope.Thread)
+    public static class NearPlane {
+        private final Hanoi4Disk hanoi = new Hanoi4Disk();
+        private Janim3D janim;
+
+        @Setup
+        public void setup() {
+            janim = Scenes.hanoiJanim();
+            janim.setCamPosition(new Point3D(40, 2, -4));
+            janim.setCamDirection(new Vector3D(-0.1, -0.05, 1));
+        }
+    }
+
+    @Benchmark
+    public void rubik3x3x3(Modes modes, Blackhole bh) {
+        Scenes.beginSolidFrame(modes.rubikJanim);
+        modes.cube.draw(modes.rubikJanim);
+        bh.consume(modes.rubikJanim.getBuffer());
+    }
+
+    @Benchmark
+    public void hanoi4Disk(Modes modes, Blackhole bh) {
+        Scenes.beginSolidFrame(modes.hanoiJanim);
+        modes.hanoi.draw(modes.hanoiJanim);
+        bh.consume(modes.hanoiJanim.getBuffer());
+    }
+
+    @Benchmark
+    public void hanoi4DiskNearPlane(NearPlane scene, Blackhole bh) {
+        Scenes.beginSolidFrame(scene.janim);
+        scene.hanoi.draw(scene.janim);
+        bh.consume(scene.janim.getBuffer());
+    }
+}
@@ -0,0 +1,57 @@
+package benchmark;
+
+import geometry.Point3D;
+import math.Mat4;
+import math.Matrix;
+import math.Transform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Matrix products and point transforms, array matrices against Mat4
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class MathBenchmarks {
+    private final double[][] a = Matrix.rotationXMatrix(0.3);
+    private final double[][] b = Matrix.translationMatrix(1, 2, 3);
+    private final Mat4 ma = Mat4.rotationX(0.3);
+    private final Mat4 mb = Mat4.translation(1, 2, 3);
+    private final Mat4 out = new Mat4();
+    private final Point3D p = new Point3D(1, 2, 3);
+
+    @Benchmark
+    public void matrixMul(Blackhole bh) {
+        bh.consume(Matrix.mul(a, b));
+    }
+
+    @Benchmark
+    public void mat4MulInto(Blackhole bh) {
+        Mat4.mulInto(ma, mb, out);
+        bh.consume(out);
+    }
+
+    @Benchmark
+    public void transformApplyArray(Blackhole bh) {
+        Transform.apply(a, p);
+        bh.consume(p);
+    }
+
+    @Benchmark
+    public void transformApplyMat4(Blackhole bh) {
+        Transform.apply(ma, p);
+        bh.consume(p);
+    }
+}
@@ -0,0 +1,102 @@
+package benchmark;
+
+import geometry.Point3D;
+import geometry.Surface3D;
+import geometry.Vector3D;
+import math.Mat4;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import projection.Camera;
+import projection.ParallelProjection;
+import projection.PerspectiveProjection;
+
+import java.util.concurrent.TimeUnit;
+
+// Single points and the packed vertices of a torus, as projected every frame, in double and float layouts
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class ProjectionBenchmarks {
+    private Mat4 view;
+    private Mat4 perspective;
+    private final Point3D p = new Point3D(1, 2, 3);
+
+    private double[] xyz;
+    private int count;
+    private double[] xy;
+
+    private float[] xs, ys, zs;
+    private float[] outX, outY, outW;
+
+    @Setup
+    public void setup() {
+        Point3D position = new Point3D(20, 20, 20);
+        Camera camera = new Camera(position, new Vector3D(position, Scenes.ORIGIN), -50);
+        view = camera.getViewMatrix();
+        perspective = camera.getPerspectiveMatrix();
+
+        xyz = new Surface3D().getTransformedVertices();
+        count = xyz.length / 3;
+        xy = new double[2 * count];
+
+        xs = new float[count];
+        ys = new float[count];
+        zs = new float[count];
+        for (int i = 0; i < count; ++i) {
+            xs[i] = (float) xyz[3*i];
+            ys[i] = (float) xyz[3*i + 1];
+            zs[i] = (float) xyz[3*i + 2];
+        }
+        outX = new float[count];
+        outY = new float[count];
+        outW = new float[count];
+    }
+
+    @Benchmark
+    public void parallelPoint(Blackhole bh) {
+        bh.consume(ParallelProjection.project(p, view));
+    }
+
+    @Benchmark
+    public void perspectivePoint(Blackhole bh) {
+        bh.consume(PerspectiveProjection.project(p, perspective));
+    }
+
+    @Benchmark
+    public void parallelTorus(Blackhole bh) {
+        ParallelProjection.project(xyz, count, view, xy);
+        bh.consume(xy);
+    }
+
+    @Benchmark
+    public void perspectiveTorus(Blackhole bh) {
+        PerspectiveProjection.project(xyz, count, perspective, xy);
+        bh.consume(xy);
+    }
+
+    @Benchmark
+    public void parallelTorusFloat(Blackhole bh) {
+        ParallelProjection.project(xs, ys, zs, count, view, outX, outY);
+        bh.consume(outX);
+        bh.consume(outY);
+    }
+
+    @Benchmark
+    public void perspectiveTorusFloat(Blackhole bh) {
+        PerspectiveProjection.project(xs, ys, zs, count, perspective, outX, outY, outW);
+        bh.consume(outX);
+        bh.consume(outY);
+    }
+}
@@ -0,0 +1,87 @@
+package benchmark;
+
+import geometry.Cube;
+import geometry.Surface3D;
+import graphics.Janim3D;
+import hanoi.Peg;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import projection.Projection;
+
+import java.util.concurrent.TimeUnit;
+
+// Solid shapes through the z-buffered rasterizer, including a full screen quad dominated by triangle fill
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class RasterizeBenchmarks {
+    private final Cube cube = new Cube(10);
+    private final Surface3D torus = new Surface3D();
+    private final Peg peg = new Peg();
+
+    private Janim3D janim;
+    private Janim3D close;
+    private Janim3D closeSpans;
+
+    @Setup
+    public void setup() {
+        janim = Scenes.appJanim(Projection.PERSPECTIVE);
+        close = Scenes.closeJanim();
+        closeSpans = Scenes.closeJanim();
+        closeSpans.setScanlineRasterization(true);
+    }
+
+    @Benchmark
+    public void drawSolidCube(Blackhole bh) {
+        Scenes.beginSolidFrame(janim);
+        janim.drawSolidShape(cube, false);
+        bh.consume(janim.getBuffer());
+    }
+
+    @Benchmark
+    public void drawSolidCubeStickers(Blackhole bh) {
+        Scenes.beginSolidFrame(janim);
+        janim.drawSolidShape(cube, true);
+        bh.consume(janim.getBuffer());
+    }
+
+    @Benchmark
+    public void drawSolidSurface3D(Blackhole bh) {
+        Scenes.beginSolidFrame(janim);
+        janim.drawSolidShape(torus, false);
+        bh.consume(janim.getBuffer());
+    }
+
+    @Benchmark
+    public void drawSolidPeg(Blackhole bh) {
+        Scenes.beginSolidFrame(janim);
+        janim.drawSolidShape(peg, false);
+        bh.consume(janim.getBuffer());
+    }
+
+    @Benchmark
+    public void fullScreenQuad(Blackhole bh) {
+        Scenes.beginSolidFrame(close);
+        close.drawSolidShape(cube, false);
+        bh.consume(close.getBuffer());
+    }
+
+    @Benchmark
+    public void fullScreenQuadScanline(Blackhole bh) {
+        Scenes.beginSolidFrame(closeSpans);
+        closeSpans.drawSolidShape(cube, false);
+        bh.consume(closeSpans.getBuffer());
+    }
+}
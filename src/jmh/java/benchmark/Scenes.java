@@ -0,0 +1,76 @@
+package benchmark;
+
+import geometry.Point3D;
+import geometry.Vector3D;
+import graphics.Janim3D;
+import projection.Projection;
+
+// Renderers and camera setups shared by the benchmarks, all at the apps' 1000x1000
+final class Scenes {
+    static final int WIDTH = 1000;
+    static final int HEIGHT = 1000;
+    static final Point3D ORIGIN = new Point3D(0, 0, 0);
+
+    private Scenes() {}
+
+    static void setMode(Janim3D janim, String mode) {
+        janim.setTiledRasterization(mode.contains("tiled"));
+        janim.setScanlineRasterization(mode.contains("scanline"));
+        janim.setFixedPointRasterization(mode.contains("fixed"));
+        janim.setHierarchicalDepth(mode.contains("hiz"));
+        janim.setMultisampling(mode.contains("msaa"));
+    }
+
+    // Same camera as App
+    static Janim3D appJanim(Projection projection) {
+        Janim3D janim = new Janim3D(WIDTH, HEIGHT);
+        Point3D position = new Point3D(20, 20, 20);
+        janim.setCamPosition(position);
+        janim.setCamDirection(new Vector3D(position, ORIGIN));
+        janim.setDistance(-50);
+        janim.setProjection(projection);
+        return janim;
+    }
+
+    // Same camera as RubikApp
+    static Janim3D rubikJanim() {
+        Janim3D janim = new Janim3D(WIDTH, HEIGHT);
+        Point3D position = new Point3D(0, 0, 40);
+        janim.setCamPosition(position);
+        janim.setCamDirection(new Vector3D(position, ORIGIN));
+        janim.setDistance(-50);
+        janim.setBackFaceCulling(true);
+        return janim;
+    }
+
+    // Same camera and light as HanoiApp
+    static Janim3D hanoiJanim() {
+        Janim3D janim = new Janim3D(WIDTH, HEIGHT);
+        Point3D position = new Point3D(0, 20, -40);
+        janim.setLightSource(new Point3D(0, 0, -30));
+        janim.setScale(8);
+        janim.setAmbientLight(0.5);
+        janim.setCamPosition(position);
+        janim.setCamDirection(new Vector3D(position, ORIGIN));
+        janim.setDistance(-50);
+        janim.setBackFaceCulling(true);
+        return janim;
+    }
+
+    // One cube face filling most of the screen, dominated by triangle rasterization
+    static Janim3D closeJanim() {
+        Janim3D janim = new Janim3D(WIDTH, HEIGHT);
+        Point3D front = new Point3D(0, 0, 40);
+        janim.setCamPosition(front);
+        janim.setCamDirection(new Vector3D(front, ORIGIN));
+        janim.setDistance(-50);
+        janim.setScale(90);
+        janim.setBackFaceCulling(true);
+        return janim;
+    }
+
+    static void beginSolidFrame(Janim3D janim) {
+        janim.clear();
+        janim.clearZBuffer();
+    }
+}
@@ -0,0 +1,104 @@
+package benchmark;
+
+import geometry.Cube;
+import geometry.Curve3D;
+import geometry.GaussSurface3D;
+import geometry.Mesh;
+import geometry.Shape;
+import geometry.SqueezedCylinder;
+import geometry.Surface3D;
+import graphics.Janim3D;
+import hanoi.Peg;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import projection.Projection;
+
+import java.util.concurrent.TimeUnit;
+
+// Tessellation, vertex transforms and wireframe drawing of every shape
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class ShapeBenchmarks {
+    @Param({"Cube", "Curve3D", "GaussSurface3D", "SqueezedCylinder", "Surface3D", "Peg"})
+    public String shapeName;
+
+    private Shape shape;
+    private Mesh.FloatVertices local;
+    private int count;
+    private float[] xs, ys, zs;
+    private Janim3D janim;
+    private Janim3D floats;
+
+    @Setup
+    public void setup() {
+        shape = newShape();
+        local = shape.getMesh().getFloatVertices();
+        count = shape.getMesh().vertexCount();
+        xs = new float[count];
+        ys = new float[count];
+        zs = new float[count];
+
+        janim = Scenes.appJanim(Projection.PERSPECTIVE);
+        floats = Scenes.appJanim(Projection.PERSPECTIVE);
+        floats.setFloatVertices(true);
+    }
+
+    private Shape newShape() {
+        return switch (shapeName) {
+            case "Cube" -> new Cube(10);
+            case "Curve3D" -> new Curve3D();
+            case "GaussSurface3D" -> new GaussSurface3D();
+            case "SqueezedCylinder" -> new SqueezedCylinder();
+            case "Surface3D" -> new Surface3D();
+            case "Peg" -> new Peg();
+            default -> throw new IllegalArgumentException("Unknown shape: " + shapeName);
+        };
+    }
+
+    // A new instance, so the local space mesh is built every time
+    @Benchmark
+    public void tessellate(Blackhole bh) {
+        bh.consume(newShape().getMesh());
+    }
+
+    @Benchmark
+    public void transform(Blackhole bh) {
+        bh.consume(shape.getTransformedVertices());
+    }
+
+    @Benchmark
+    public void transformFloat(Blackhole bh) {
+        shape.getTransformation().transformPoints(local.xs(), local.ys(), local.zs(), xs, ys, zs, count);
+        bh.consume(xs);
+        bh.consume(ys);
+        bh.consume(zs);
+    }
+
+    @Benchmark
+    public void drawShape(Blackhole bh) {
+        janim.clear();
+        janim.drawShape(shape);
+        bh.consume(janim.getBuffer());
+    }
+
+    @Benchmark
+    public void drawShapeFloat(Blackhole bh) {
+        floats.clear();
+        floats.drawShape(shape);
+        bh.consume(floats.getBuffer());
+    }
+}
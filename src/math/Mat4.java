@@ -0,0 +1,210 @@
+package math;
+
+import geometry.Point3D;
+
+import java.util.Arrays;
+
+import static java.lang.Math.cos;
+import static java.lang.Math.sin;
+
+// 4x4 matrix stored row-major in a flat array
+public class Mat4 {
+    private final double[] m = new double[16];
+
+    public Mat4() {
+        setIdentity();
+    }
+
+    public Mat4(Mat4 original) {
+        set(original);
+    }
+
+    public Mat4(double[][] rows) {
+        for (int i = 0; i < 4; ++i) {
+            for (int j = 0; j < 4; ++j) {
+                m[4*i + j] = rows[i][j];
+            }
+        }
+    }
+
+    public static Mat4 identity() {
+        return new Mat4();
+    }
+
+    public static Mat4 scale(double sx, double sy, double sz) {
+        Mat4 r = new Mat4();
+        r.m[0] = sx;
+        r.m[5] = sy;
+        r.m[10] = sz;
+        return r;
+    }
+
+    public static Mat4 translation(double dx, double dy, double dz) {
+        Mat4 r = new Mat4();
+        r.m[3] = dx;
+        r.m[7] = dy;
+        r.m[11] = dz;
+        return r;
+    }
+
+    public static Mat4 rotationX(double t) {
+        Mat4 r = new Mat4();
+        double c = cos(t), s = sin(t);
+        r.m[5] = c;  r.m[6] = -s;
+        r.m[9] = s;  r.m[10] = c;
+        return r;
+    }
+
+    public static Mat4 rotationY(double t) {
+        Mat4 r = new Mat4();
+        double c = cos(t), s = sin(t);
+        r.m[0] = c;  r.m[2] = s;
+        r.m[8] = -s; r.m[10] = c;
+        return r;
+    }
+
+    public static Mat4 rotationZ(double t) {
+        Mat4 r = new Mat4();
+        double c = cos(t), s = sin(t);
+        r.m[0] = c;  r.m[1] = -s;
+        r.m[4] = s;  r.m[5] = c;
+        return r;
+    }
+
+    public static Mat4 rotation(double t, char axis) {
+        return switch (axis) {
+            case 'x' -> rotationX(t);
+            case 'y' -> rotationY(t);
+            case 'z' -> rotationZ(t);
+            default -> throw new IllegalArgumentException("Invalid axis");
+        };
+    }
+
+    public void setIdentity() {
+        Arrays.fill(m, 0);
+        m[0] = m[5] = m[10] = m[15] = 1;
+    }
+
+    public void set(Mat4 other) {
+        System.arraycopy(other.m, 0, m, 0, 16);
+    }
+
+    public double get(int row, int col) {
+        return m[4*row + col];
+    }
+
+    public void set(int row, int col, double value) {
+        m[4*row + col] = value;
+    }
+
+    public Mat4 copy() {
+        return new Mat4(this);
+    }
+
+    // out = a * b, out may be a or b
+    public static void mulInto(Mat4 a, Mat4 b, Mat4 out) {
+        double[] x = a.m, y = b.m;
+        double c00 = x[0]*y[0]  + x[1]*y[4]  + x[2]*y[8]   + x[3]*y[12];
+        double c01 = x[0]*y[1]  + x[1]*y[5]  + x[2]*y[9]   + x[3]*y[13];
+        double c02 = x[0]*y[2]  + x[1]*y[6]  + x[2]*y[10]  + x[3]*y[14];
+        double c03 = x[0]*y[3]  + x[1]*y[7]  + x[2]*y[11]  + x[3]*y[15];
+        double c10 = x[4]*y[0]  + x[5]*y[4]  + x[6]*y[8]   + x[7]*y[12];
+        double c11 = x[4]*y[1]  + x[5]*y[5]  + x[6]*y[9]   + x[7]*y[13];
+        double c12 = x[4]*y[2]  + x[5]*y[6]  + x[6]*y[10]  + x[7]*y[14];
+        double c13 = x[4]*y[3]  + x[5]*y[7]  + x[6]*y[11]  + x[7]*y[15];
+        double c20 = x[8]*y[0]  + x[9]*y[4]  + x[10]*y[8]  + x[11]*y[12];
+        double c21 = x[8]*y[1]  + x[9]*y[5]  + x[10]*y[9]  + x[11]*y[13];
+        double c22 = x[8]*y[2]  + x[9]*y[6]  + x[10]*y[10] + x[11]*y[14];
+        double c23 = x[8]*y[3]  + x[9]*y[7]  + x[10]*y[11] + x[11]*y[15];
+        double c30 = x[12]*y[0] + x[13]*y[4] + x[14]*y[8]  + x[15]*y[12];
+        double c31 = x[12]*y[1] + x[13]*y[5] + x[14]*y[9]  + x[15]*y[13];
+        double c32 = x[12]*y[2] + x[13]*y[6] + x[14]*y[10] + x[15]*y[14];
+        double c33 = x[12]*y[3] + x[13]*y[7] + x[14]*y[11] + x[15]*y[15];
+
+        double[] o = out.m;
+        o[0] = c00;  o[1] = c01;  o[2] = c02;  o[3] = c03;
+        o[4] = c10;  o[5] = c11;  o[6] = c12;  o[7] = c13;
+        o[8] = c20;  o[9] = c21;  o[10] = c22; o[11] = c23;
+        o[12] = c30; o[13] = c31; o[14] = c32; o[15] = c33;
+    }
+
+    // this = a * this
+    public void mulLeft(Mat4 a) {
+        mulInto(a, this, this);
+    }
+
+    // this = this * b
+    public void mulRight(Mat4 b) {
+        mulInto(this, b, this);
+    }
+
+    // Affine transform of (x, y, z, 1), result written to out[0..2]
+    public void transformPoint(double x, double y, double z, double[] out) {
+        out[0] = m[0]*x + m[1]*y + m[2]*z  + m[3];
+        out[1] = m[4]*x + m[5]*y + m[6]*z  + m[7];
+        out[2] = m[8]*x + m[9]*y + m[10]*z + m[11];
+    }
+
+    public void transformPoint(Point3D p) {
+        double x = p.x(), y = p.y(), z = p.z();
+        p.set(
+                m[0]*x + m[1]*y + m[2]*z  + m[3],
+                m[4]*x + m[5]*y + m[6]*z  + m[7],
+                m[8]*x + m[9]*y + m[10]*z + m[11]
+        );
+    }
+
+    // In place affine transform of count packed xyz triples
+    public void transformPoints(double[] xyz, int count) {
+        transformPoints(xyz, xyz, count);
+    }
+
+    public void transformPoints(double[] src, double[] dst, int count) {
+        double m0 = m[0], m1 = m[1], m2 = m[2],  m3 = m[3];
+        double m4 = m[4], m5 = m[5], m6 = m[6],  m7 = m[7];
+        double m8 = m[8], m9 = m[9], m10 = m[10], m11 = m[11];
+        for (int i = 0, n = 3*count; i < n; i += 3) {
+            double x = src[i], y = src[i+1], z = src[i+2];
+            dst[i]   = m0*x + m1*y + m2*z  + m3;
+            dst[i+1] = m4*x + m5*y + m6*z  + m7;
+            dst[i+2] = m8*x + m9*y + m10*z + m11;
+        }
+    }
+
+    // Same in float structure of arrays, in straight loops the JIT can vectorize. C2 gives up on loops storing
+    // to three arrays, so z gets a loop of its own.
+    public void transformPoints(float[] xs, float[] ys, float[] zs, float[] outX, float[] outY, float[] outZ,
+                                int count) {
+        float m0 = (float) m[0], m1 = (float) m[1], m2 = (float) m[2],  m3 = (float) m[3];
+        float m4 = (float) m[4], m5 = (float) m[5], m6 = (float) m[6],  m7 = (float) m[7];
+        float m8 = (float) m[8], m9 = (float) m[9], m10 = (float) m[10], m11 = (float) m[11];
+        for (int i = 0; i < count; ++i) {
+            float x = xs[i], y = ys[i], z = zs[i];
+            outX[i] = m0*x + m1*y + m2*z + m3;
+            outY[i] = m4*x + m5*y + m6*z + m7;
+        }
+        for (int i = 0; i < count; ++i) {
+            outZ[i] = m8*xs[i] + m9*ys[i] + m10*zs[i] + m11;
+        }
+    }
+
+    // Dot product of a row with (x, y, z, 1)
+    public double row(int row, double x, double y, double z) {
+        int i = 4*row;
+        return m[i]*x + m[i+1]*y + m[i+2]*z + m[i+3];
+    }
+
+    public double[][] toArray() {
+        return new double[][] {
+                {m[0],  m[1],  m[2],  m[3]},
+                {m[4],  m[5],  m[6],  m[7]},
+                {m[8],  m[9],  m[10], m[11]},
+                {m[12], m[13], m[14], m[15]}
+        };
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.deepToString(toArray());
+    }
+}
@@ -7,136 +7,71 @@ import geometry.Vector3D;
 public class Transform {
 
     public static void apply(double[][] m, Point3D p) {
-        double[][] newPoint = Matrix.mul(
-                m,
-                new double[][] {
-                        {p.x()},
-                        {p.y()},
-                        {p.z()},
-                        {1}
-                }
-        );
-
-        assert newPoint != null;
+        double x = p.x(), y = p.y(), z = p.z();
         p.set(
-                newPoint[0][0], newPoint[1][0], newPoint[2][0]
+                m[0][0]*x + m[0][1]*y + m[0][2]*z + m[0][3],
+                m[1][0]*x + m[1][1]*y + m[1][2]*z + m[1][3],
+                m[2][0]*x + m[2][1]*y + m[2][2]*z + m[2][3]
         );
     }
 
-    public static void toRealPoint2D(Point2D p, int s, int w, int h) {
-        double[][] realPoint = Matrix.mul(
-                new double[][] {
-                        {s,  0, w},
-                        {0, -s, h},
-                        {0,  0, 1}
-                },
-                new double[][] {
-                        {p.x()},
-                        {p.y()},
-                        {1}
-                }
-        );
+    public static void apply(Mat4 m, Point3D p) {
+        m.transformPoint(p);
+    }
 
-        assert realPoint != null;
+    // [s 0 w; 0 -s h; 0 0 1] * (x, y, 1)
+    public static void toRealPoint2D(Point2D p, int s, int w, int h) {
         p.set(
-                realPoint[0][0], realPoint[1][0]
+                s * p.x() + w,
+                -s * p.y() + h
         );
     }
 
     public static void rotateVector3DAroundX(Vector3D v, double t) {
-        double[][] newVector = Matrix.mul(
-                Matrix.rotationXMatrix(t),
-                new double[][] {
-                        {v.x()},
-                        {v.y()},
-                        {v.z()},
-                        {1}
-                }
-        );
-
-        assert newVector != null;
+        double c = Math.cos(t), s = Math.sin(t);
         v.set(
-                newVector[0][0], newVector[1][0], newVector[2][0]
+                v.x(), c*v.y() - s*v.z(), s*v.y() + c*v.z()
         );
     }
 
     public static void rotateVector3DAroundY(Vector3D v, double t) {
-        double[][] newVector = Matrix.mul(
-                Matrix.rotationYMatrix(t),
-                new double[][] {
-                        {v.x()},
-                        {v.y()},
-                        {v.z()},
-                        {1}
-                }
-        );
-
-        assert newVector != null;
+        double c = Math.cos(t), s = Math.sin(t);
         v.set(
-                newVector[0][0], newVector[1][0], newVector[2][0]
+                c*v.x() + s*v.z(), v.y(), -s*v.x() + c*v.z()
         );
     }
 
     public static void rotateVector3DAroundZ(Vector3D v, double t) {
-        double[][] newVector = Matrix.mul(
-                Matrix.rotationZMatrix(t),
-                new double[][] {
-                        {v.x()},
-                        {v.y()},
-                        {v.z()},
-                        {1}
-                }
-        );
-
-        assert newVector != null;
+        double c = Math.cos(t), s = Math.sin(t);
         v.set(
-                newVector[0][0], newVector[1][0], newVector[2][0]
+                c*v.x() - s*v.y(), s*v.x() + c*v.y(), v.z()
         );
     }
 
     public static void rotatePoint3DAroundX(Point3D p, double t) {
-        Vector3D pointVector = new Vector3D(p.x(), p.y(), p.z());
-        rotateVector3DAroundX(pointVector, t);
+        double c = Math.cos(t), s = Math.sin(t);
         p.set(
-                pointVector.x(), pointVector.y(), pointVector.z()
+                p.x(), c*p.y() - s*p.z(), s*p.y() + c*p.z()
         );
     }
 
     public static void rotatePoint3DAroundY(Point3D p, double t) {
-        Vector3D pointVector = new Vector3D(p.x(), p.y(), p.z());
-        rotateVector3DAroundY(pointVector, t);
+        double c = Math.cos(t), s = Math.sin(t);
         p.set(
-                pointVector.x(), pointVector.y(), pointVector.z()
+                c*p.x() + s*p.z(), p.y(), -s*p.x() + c*p.z()
         );
     }
 
     public static void rotatePoint3DAroundZ(Point3D p, double t) {
-        Vector3D pointVector = new Vector3D(p.x(), p.y(), p.z());
-        rotateVector3DAroundZ(pointVector, t);
+        double c = Math.cos(t), s = Math.sin(t);
         p.set(
-                pointVector.x(), pointVector.y(), pointVector.z()
+                c*p.x() - s*p.y(), s*p.x() + c*p.y(), p.z()
         );
     }
 
     public static void translatePoint3D(Point3D p, double dx, double dy, double dz) {
-        double[][] newPoint = Matrix.mul(
-                new double[][] {
-                        {1, 0, 0, dx},
-                        {0, 1, 0, dy},
-                        {0, 0, 1, dz},
-                        {0, 0, 0, 1 }
-                },
-                new double[][] {
-                        {p.x()},
-                        {p.y()},
-                        {p .z()},
-                        {1}
-                }
-        );
-
-        assert newPoint != null;
         p.set(
-                newPoint[0][0], newPoint[1][0], newPoint[2][0]
+                p.x() + dx, p.y() + dy, p.z() + dz
         );
     }
 }
@@ -0,0 +1,127 @@
+package projection;
+
+import geometry.Point2D;
+import geometry.Point3D;
+import geometry.Vector3D;
+import math.Mat4;
+
+public class Camera {
+    private Point3D position;
+    private Vector3D direction;
+    private double distance;
+
+    // Cached matrices, rebuilt lazily after any camera change
+    private Mat4 view;
+    private Mat4 perspective;
+
+    public Camera(Point3D position, Vector3D direction, double distance) {
+        this.position = position;
+        this.direction = direction;
+        this.distance = distance;
+    }
+
+    public Point3D getPosition() {
+        return position;
+    }
+
+    public Vector3D getDirection() {
+        return direction;
+    }
+
+    public double getDistance() {
+        return distance;
+    }
+
+    public void setPosition(Point3D position) {
+        this.position = position;
+        invalidate();
+    }
+
+    public void setDirection(Vector3D direction) {
+        this.direction = direction;
+        invalidate();
+    }
+
+    public void setDistance(double distance) {
+        this.distance = distance;
+        invalidate();
+    }
+
+    public void invalidate() {
+        view = null;
+        perspective = null;
+    }
+
+    // Translation to the camera plus alignment of the plane normal with z axis
+    public Mat4 getViewMatrix() {
+        if (view == null) {
+            view = viewMatrix(direction.opp(), position);
+        }
+        return view;
+    }
+
+    // View matrix whose last row yields w = z/distance, so x/w and y/w are the perspective coordinates
+    public Mat4 getPerspectiveMatrix() {
+        if (perspective == null) {
+            perspective = perspectiveMatrix(getViewMatrix(), distance);
+        }
+        return perspective;
+    }
+
+    public Mat4 getMatrix(Projection projection) {
+        return projection == Projection.PERSPECTIVE ? getPerspectiveMatrix() : getViewMatrix();
+    }
+
+    public Point2D project(Point3D point, Projection projection) {
+        if (projection == Projection.PERSPECTIVE)
+            return PerspectiveProjection.project(point, getPerspectiveMatrix());
+        return ParallelProjection.project(point, getViewMatrix());
+    }
+
+    public void project(double[] xyz, int count, Projection projection, double[] xy) {
+        if (projection == Projection.PERSPECTIVE)
+            PerspectiveProjection.project(xyz, count, getPerspectiveMatrix(), xy);
+        else
+            ParallelProjection.project(xyz, count, getViewMatrix(), xy);
+    }
+
+    public static Mat4 viewMatrix(Vector3D normal, Point3D center) {
+        Vector3D n = new Vector3D(normal);
+        n.normalize();
+
+        // double semiR = Math.sqrt(n.x()*n.x() + n.y()*n.y());
+        double semiR = Math.sqrt(n.x()*n.x() + n.z()*n.z());
+        double phi, theta;
+
+        if (n.y() == 0)
+            phi = Math.PI/2;
+        else {
+            phi = Math.atan(semiR / n.y());
+            if (phi < 0) phi += Math.PI;
+        }
+
+        if (n.z() == 0 && n.x() >= 0)
+            theta = Math.PI/2;
+        else if (n.z() == 0)
+            theta = 3*Math.PI/2;
+        else {
+            theta = Math.atan(n.x() / n.z());
+            if (n.z() < 0) theta += Math.PI;
+            else if (theta < 0) theta += 2*Math.PI;
+        }
+
+        // Move to center, then rotate around Y and X
+        Mat4 m = Mat4.translation(-center.x(), -center.y(), -center.z());
+        m.mulLeft(Mat4.rotationY(-theta));
+        m.mulLeft(Mat4.rotationX(-phi+Math.PI/2));
+        return m;
+    }
+
+    public static Mat4 perspectiveMatrix(Mat4 view, double distance) {
+        Mat4 m = view.copy();
+        for (int k = 0; k < 4; ++k) {
+            m.set(3, k, view.get(2, k) / distance);
+        }
+        return m;
+    }
+}
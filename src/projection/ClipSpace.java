@@ -0,0 +1,148 @@
+package projection;
+
+import math.Mat4;
+
+// Perspective geometry in homogeneous coordinates (x, y, w) before the divide, w being the depth in front of
+// the eye over the camera distance (see Camera.perspectiveMatrix). Lines and polygons are clipped against a
+// near plane, so that nothing at or behind the eye gets divided, and against a guard band far outside the
+// screen, which bounds projected coordinates without clipping to the screen edges themselves.
+// Clipped vertices are packed stride values each: x, y, w, then attributes interpolated along with them.
+public class ClipSpace {
+    // A fiftieth of the camera distance in front of the eye
+    public static final double NEAR = 0.02;
+
+    public static final int INSIDE = 0; // 00000
+    public static final int NEAR_PLANE = 1; // 00001
+    public static final int LEFT = 2; // 00010
+    public static final int RIGHT = 4; // 00100
+    public static final int BOTTOM = 8; // 01000
+    public static final int TOP = 16; // 10000
+
+    private double guardX = Double.POSITIVE_INFINITY;
+    private double guardY = Double.POSITIVE_INFINITY;
+
+    // Polygon being clipped and the output of the current plane
+    private double[] polygon = new double[0];
+    private double[] scratch = new double[0];
+
+    // Largest |x/w| and |y/w| kept, in projected units
+    public void setGuardBand(double guardX, double guardY) {
+        this.guardX = guardX;
+        this.guardY = guardY;
+    }
+
+    // Project count packed xyz points with a perspective matrix into packed xyw
+    public static void project(double[] xyz, int count, Mat4 m, double[] xyw) {
+        for (int i = 0; i < count; ++i) {
+            double x = xyz[3*i], y = xyz[3*i + 1], z = xyz[3*i + 2];
+            xyw[3*i] = m.row(0, x, y, z);
+            xyw[3*i + 1] = m.row(1, x, y, z);
+            xyw[3*i + 2] = m.row(3, x, y, z);
+        }
+    }
+
+    // Planes the vertex at offset is outside of
+    public int outcode(double[] v, int offset) {
+        return outcode(v[offset], v[offset + 1], v[offset + 2]);
+    }
+
+    public int outcode(double x, double y, double w) {
+        int code = INSIDE;
+        if (w < NEAR) code |= NEAR_PLANE;
+        if (x < -guardX * w) code |= LEFT;
+        if (x > guardX * w) code |= RIGHT;
+        if (y < -guardY * w) code |= BOTTOM;
+        if (y > guardY * w) code |= TOP;
+        return code;
+    }
+
+    // Signed distance to a plane, not normalized, non negative inside
+    private double distance(int plane, double[] v, int offset) {
+        double x = v[offset], y = v[offset + 1], w = v[offset + 2];
+        return switch (plane) {
+            case NEAR_PLANE -> w - NEAR;
+            case LEFT -> x + guardX * w;
+            case RIGHT -> guardX * w - x;
+            case BOTTOM -> y + guardY * w;
+            default -> guardY * w - y;
+        };
+    }
+
+    // Twice the signed area of triangle a, b, c on screen times the product of the w's, whose sign tells the
+    // facing even with vertices behind the eye. Positive where Janim3D's screen edge function is.
+    public static double orientation(double[] xyw, int a, int b, int c) {
+        double ax = xyw[3*a], ay = xyw[3*a + 1], aw = xyw[3*a + 2];
+        double bx = xyw[3*b], by = xyw[3*b + 1], bw = xyw[3*b + 2];
+        double cx = xyw[3*c], cy = xyw[3*c + 1], cw = xyw[3*c + 2];
+        return ax * (by*cw - bw*cy) - ay * (bx*cw - bw*cx) + aw * (bx*cy - by*cx);
+    }
+
+    // Clip the convex polygon of count vertices against the planes set in planes, an or of outcodes.
+    // Returns the number of vertices left, which are then in polygon().
+    public int clipPolygon(double[] vertices, int count, int stride, int planes) {
+        // Every plane adds at most one vertex
+        int capacity = (count + 5) * stride;
+        if (polygon.length < capacity) {
+            polygon = new double[capacity];
+            scratch = new double[capacity];
+        }
+        System.arraycopy(vertices, 0, polygon, 0, count * stride);
+
+        for (int plane = NEAR_PLANE; plane <= TOP && count >= 3; plane <<= 1) {
+            if ((planes & plane) == 0) continue;
+
+            int n = 0;
+            for (int i = 0; i < count; ++i) {
+                int p = i * stride, q = ((i + 1) % count) * stride;
+                double dp = distance(plane, polygon, p), dq = distance(plane, polygon, q);
+
+                if (dp >= 0) {
+                    System.arraycopy(polygon, p, scratch, n++ * stride, stride);
+                }
+                if ((dp >= 0) != (dq >= 0)) {
+                    // Edge crosses the plane, every value is linear along it before the divide
+                    double t = dp / (dp - dq);
+                    int o = n++ * stride;
+                    for (int k = 0; k < stride; ++k) {
+                        scratch[o + k] = polygon[p + k] + t * (polygon[q + k] - polygon[p + k]);
+                    }
+                }
+            }
+
+            double[] t = polygon;
+            polygon = scratch;
+            scratch = t;
+            count = n;
+        }
+        return count >= 3 ? count : 0;
+    }
+
+    public double[] polygon() {
+        return polygon;
+    }
+
+    // Clip the segment line = {x0, y0, w0, x1, y1, w1} in place, false when nothing of it is left
+    public boolean clipLine(double[] line) {
+        double t0 = 0, t1 = 1;
+        for (int plane = NEAR_PLANE; plane <= TOP; plane <<= 1) {
+            double d0 = distance(plane, line, 0), d1 = distance(plane, line, 3);
+            if (d0 < 0 && d1 < 0) return false;
+            if (d0 < 0) {
+                t0 = Math.max(t0, d0 / (d0 - d1));
+            } else if (d1 < 0) {
+                t1 = Math.min(t1, d0 / (d0 - d1));
+            }
+            if (t0 > t1) return false;
+        }
+
+        double x0 = line[0], y0 = line[1], w0 = line[2];
+        double dx = line[3] - x0, dy = line[4] - y0, dw = line[5] - w0;
+        line[0] = x0 + t0 * dx;
+        line[1] = y0 + t0 * dy;
+        line[2] = w0 + t0 * dw;
+        line[3] = x0 + t1 * dx;
+        line[4] = y0 + t1 * dy;
+        line[5] = w0 + t1 * dw;
+        return true;
+    }
+}
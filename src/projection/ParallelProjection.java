@@ -3,49 +3,40 @@ package projection;
 import geometry.Point2D;
 import geometry.Point3D;
 import geometry.Vector3D;
-import math.Transform;
+import math.Mat4;
 
 public class ParallelProjection {
 
     // Project point into the plane with specific normal mapping the center
     public static Point2D project(Point3D point, Vector3D normal, Point3D center) {
-        // Copies
-        Point3D p = new Point3D(point);
-        Vector3D n = new Vector3D(normal);
-        n.normalize();
+        return project(point, Camera.viewMatrix(normal, center));
+    }
 
-        // Step 1: Move to center
-        double dx = center.x();
-        double dy = center.y();
-        double dz = center.z();
-        Transform.translatePoint3D(p, -dx, -dy, -dz);
+    // Project point with a precomputed view matrix (see Camera)
+    public static Point2D project(Point3D point, Mat4 view) {
+        double x = point.x(), y = point.y(), z = point.z();
 
-        // Step 2: Align normal with z axis
-        // double semiR = Math.sqrt(n.x()*n.x() + n.y()*n.y());
-        double semiR = Math.sqrt(n.x()*n.x() + n.z()*n.z());
-        double phi, theta;
+        // Project p into xy plane
+        return new Point2D(view.row(0, x, y, z), view.row(1, x, y, z));
+    }
 
-        if (n.y() == 0)
-            phi = Math.PI/2;
-        else {
-            phi = Math.atan(semiR / n.y());
-            if (phi < 0) phi += Math.PI;
+    // Project count points in float structure of arrays into outX, outY
+    public static void project(float[] xs, float[] ys, float[] zs, int count, Mat4 view, float[] outX, float[] outY) {
+        float m0 = (float) view.get(0, 0), m1 = (float) view.get(0, 1), m2 = (float) view.get(0, 2), m3 = (float) view.get(0, 3);
+        float m4 = (float) view.get(1, 0), m5 = (float) view.get(1, 1), m6 = (float) view.get(1, 2), m7 = (float) view.get(1, 3);
+        for (int i = 0; i < count; ++i) {
+            float x = xs[i], y = ys[i], z = zs[i];
+            outX[i] = m0*x + m1*y + m2*z + m3;
+            outY[i] = m4*x + m5*y + m6*z + m7;
         }
+    }
 
-        if (n.z() == 0 && n.x() >= 0)
-            theta = Math.PI/2;
-        else if (n.z() == 0)
-            theta = 3*Math.PI/2;
-        else {
-            theta = Math.atan(n.x() / n.z());
-            if (n.z() < 0) theta += Math.PI;
-            else if (theta < 0) theta += 2*Math.PI;
+    // Project count packed xyz points into packed xy
+    public static void project(double[] xyz, int count, Mat4 view, double[] xy) {
+        for (int i = 0; i < count; ++i) {
+            double x = xyz[3*i], y = xyz[3*i + 1], z = xyz[3*i + 2];
+            xy[2*i] = view.row(0, x, y, z);
+            xy[2*i + 1] = view.row(1, x, y, z);
         }
-
-        Transform.rotatePoint3DAroundY(p, -theta);
-        Transform.rotatePoint3DAroundX(p, -phi+Math.PI/2);
-
-        // Project p into xy plane
-        return new Point2D(p.x(), p.y());
     }
 }
@@ -3,49 +3,47 @@ package projection;
 import geometry.Point2D;
 import geometry.Point3D;
 import geometry.Vector3D;
-import math.Transform;
+import math.Mat4;
 
 public class PerspectiveProjection {
 
     // Project point into the plane with specific normal mapping the center
     public static Point2D project(Point3D point, Vector3D normal, Point3D center, double distance) {
-        // Copies
-        Point3D p = new Point3D(point);
-        Vector3D n = new Vector3D(normal);
-        n.normalize();
+        return project(point, Camera.perspectiveMatrix(Camera.viewMatrix(normal, center), distance));
+    }
 
-        // Step 1: Move to center
-        double dx = center.x();
-        double dy = center.y();
-        double dz = center.z();
-        Transform.translatePoint3D(p, -dx, -dy, -dz);
+    // Project point with a precomputed perspective matrix (see Camera)
+    public static Point2D project(Point3D point, Mat4 m) {
+        double x = point.x(), y = point.y(), z = point.z();
+        double w = m.row(3, x, y, z);
 
-        // Step 2: Align normal with z axis
-        // double semiR = Math.sqrt(n.x()*n.x() + n.y()*n.y());
-        double semiR = Math.sqrt(n.x()*n.x() + n.z()*n.z());
-        double phi, theta;
+        return new Point2D(m.row(0, x, y, z) / w, m.row(1, x, y, z) / w);
+    }
 
-        if (n.y() == 0)
-            phi = Math.PI/2;
-        else {
-            phi = Math.atan(semiR / n.y());
-            if (phi < 0) phi += Math.PI;
+    // Homogeneous x, y and w of count points in float structure of arrays, before the divide. w has a loop of
+    // its own so that both loops vectorize (see Mat4.transformPoints).
+    public static void project(float[] xs, float[] ys, float[] zs, int count, Mat4 m,
+                               float[] outX, float[] outY, float[] outW) {
+        float m0 = (float) m.get(0, 0), m1 = (float) m.get(0, 1), m2 = (float) m.get(0, 2), m3 = (float) m.get(0, 3);
+        float m4 = (float) m.get(1, 0), m5 = (float) m.get(1, 1), m6 = (float) m.get(1, 2), m7 = (float) m.get(1, 3);
+        float m12 = (float) m.get(3, 0), m13 = (float) m.get(3, 1), m14 = (float) m.get(3, 2), m15 = (float) m.get(3, 3);
+        for (int i = 0; i < count; ++i) {
+            float x = xs[i], y = ys[i], z = zs[i];
+            outX[i] = m0*x + m1*y + m2*z + m3;
+            outY[i] = m4*x + m5*y + m6*z + m7;
         }
-
-        if (n.z() == 0 && n.x() >= 0)
-            theta = Math.PI/2;
-        else if (n.z() == 0)
-            theta = 3*Math.PI/2;
-        else {
-            theta = Math.atan(n.x() / n.z());
-            if (n.z() < 0) theta += Math.PI;
-            else if (theta < 0) theta += 2*Math.PI;
+        for (int i = 0; i < count; ++i) {
+            outW[i] = m12*xs[i] + m13*ys[i] + m14*zs[i] + m15;
         }
+    }
 
-        Transform.rotatePoint3DAroundY(p, -theta);
-        Transform.rotatePoint3DAroundX(p, -phi+Math.PI/2);
-
-        // Project p into xy plane
-        return new Point2D(p.x() * (distance/p.z()), p.y() * (distance/p.z()));
+    // Project count packed xyz points into packed xy
+    public static void project(double[] xyz, int count, Mat4 m, double[] xy) {
+        for (int i = 0; i < count; ++i) {
+            double x = xyz[3*i], y = xyz[3*i + 1], z = xyz[3*i + 2];
+            double w = m.row(3, x, y, z);
+            xy[2*i] = m.row(0, x, y, z) / w;
+            xy[2*i + 1] = m.row(1, x, y, z) / w;
+        }
     }
 }
@@ -1,34 +1,77 @@
 package rubik;
 
 import geometry.Cube;
-import geometry.SolidShape;
+import geometry.Mesh;
+import graphics.Instance;
 import graphics.Janim3D;
-import math.Matrix;
+import math.Mat4;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class Rubik3x3x3 {
-    private final List<SolidShape> cubelets;
+    // One cube mesh drawn at every cubelet's transformation, with the transformation each cubelet starts
+    // its current face movement from
+    private final Cube cubelet;
+    private final List<Instance> cubelets;
+    private final List<Mat4> initialTransforms;
     private int[][] faces;
 
+    // Local axis each cubelet mesh face looks along, and the sign of its outward direction on that axis
+    private final int[] faceAxis;
+    private final int[] faceSign;
+
+    // Without gaps between cubelets the faces pressed against a neighbour are hidden and not drawn
+    private final double spacing;
+    private final boolean touching;
+    private int movingFace = -1; // Turned by moveFace and not yet back on the grid, -1 when none
+    private final boolean[] turning = new boolean[27]; // Cubelets of movingFace
+
     public Rubik3x3x3() {
+        cubelet = null;
         cubelets = new ArrayList<>();
+        initialTransforms = new ArrayList<>();
+        faceAxis = new int[0];
+        faceSign = new int[0];
+        spacing = 0;
+        touching = false;
     }
 
     public Rubik3x3x3(double spacing, double cubeletSize) {
+        cubelet = new Cube(cubeletSize);
         cubelets = new ArrayList<>();
+        initialTransforms = new ArrayList<>();
+        this.spacing = spacing;
+        touching = spacing <= cubeletSize;
+
+        // Axes from the mesh's own face normals, so they follow Cube's face order. The winding may point a
+        // normal either way, the face center says which side is out.
+        Mesh.InsetFaces inset = cubelet.getMesh().getInsetFaces();
+        double[] n = inset.normals(), corners = inset.vertices();
+        int faceCount = cubelet.getMesh().faceCount();
+        faceAxis = new int[faceCount];
+        faceSign = new int[faceCount];
+        for (int f = 0; f < faceCount; ++f) {
+            int axis = 0;
+            for (int k = 1; k < 3; ++k) {
+                if (Math.abs(n[3*f + k]) > Math.abs(n[3*f + axis])) axis = k;
+            }
+            double center = 0;
+            for (int i = 0; i < 4; ++i) {
+                center += corners[12*f + 3*i + axis];
+            }
+            faceAxis[f] = axis;
+            faceSign[f] = center > 0 ? 1 : -1;
+        }
 
         for (int x = -1; x <= 1; x++) {
             for (int y = -1; y <= 1; y++) {
                 for (int z = -1; z <= 1; z++) {
-                    // Create cubelet
-                    Cube cubelet = new Cube(cubeletSize);
-
                     // Position cubelet
-                    cubelet.translate(x*spacing, y*spacing, z*spacing);
-                    cubelet.setInitialTransform(cubelet.getTransformation());
-                    cubelets.add(cubelet);
+                    Mat4 transformation = Mat4.translation(x*spacing, y*spacing, z*spacing);
+                    cubelets.add(new Instance(transformation, null, new boolean[faceCount]));
+                    initialTransforms.add(transformation.copy());
                 }
             }
         }
@@ -80,77 +123,101 @@ public class Rubik3x3x3 {
 
     public void moveFace(int faceIndex, double theta) {
         int[] faceIndexes = faces[faceIndex];
+        movingFace = faceIndex;
+
+        Mat4 rotation = switch (faceIndex) {
+            case 0, 1 -> Mat4.rotationX(theta);
+            case 2, 3 -> Mat4.rotationY(theta);
+            case 4, 5 -> Mat4.rotationZ(theta);
+            default -> throw new IllegalArgumentException("Invalid axis");
+        };
 
         for (int index : faceIndexes) {
-            Cube cubelet = (Cube) cubelets.get(index);
-            cubelet.resetTransformation();
-
-            double[][] rotation = switch (faceIndex) {
-                case 0, 1 -> Matrix.rotationXMatrix(theta);
-                case 2, 3 -> Matrix.rotationYMatrix(theta);
-                case 4, 5 -> Matrix.rotationZMatrix(theta);
-                default -> throw new IllegalArgumentException("Invalid axis");
-            };
-
-            cubelet.setTransformation(Matrix.mul(
-                    rotation,
-                    cubelet.getTransformation()
-            ));
-
-            cubelet.setInitialTransform(cubelet.getTransformation());
-
-            cubelet.setTransformation(Matrix.mul(
-                    ((Cube) cubelets.get(13)).getTransformation(),
-                    cubelet.getTransformation()
-            ));
+            Mat4 transformation = cubelets.get(index).transform();
+            transformation.set(initialTransforms.get(index));
+            transformation.mulLeft(rotation);
+
+            initialTransforms.get(index).set(transformation);
+
+            transformation.mulLeft(cubelets.get(13).transform());
         }
     }
 
     // This works on every case without translation of the cube
     public void rotate(double t, char axis) {
-        for (SolidShape solidShape : cubelets) {
-            Cube cubelet = (Cube) solidShape;
-            double[][] rotation = switch (axis) {
-                case 'x' -> Matrix.rotationXMatrix(t);
-                case 'y' -> Matrix.rotationYMatrix(t);
-                case 'z' -> Matrix.rotationZMatrix(t);
-                default -> throw new IllegalArgumentException("Invalid axis");
-            };
-
-            cubelet.setTransformation(Matrix.mul(
-                    rotation,
-                    cubelet.getTransformation()
-            ));
+        Mat4 rotation = Mat4.rotation(t, axis);
+        for (Instance instance : cubelets) {
+            instance.transform().mulLeft(rotation);
         }
     }
 
     public void translate(double dx, double dy, double dz) {
-        for (SolidShape solidShape : cubelets) {
-            Cube cubelet = (Cube) solidShape;
-            cubelet.setTransformation(
-                    Matrix.mul(
-                            Matrix.translationMatrix(dx, dy, dz),
-                            cubelet.getTransformation()
-                    )
-            );
+        Mat4 translation = Mat4.translation(dx, dy, dz);
+        for (Instance instance : cubelets) {
+            instance.transform().mulLeft(translation);
         }
     }
 
     public void scale(double sx, double sy, double sz) {
-        for (SolidShape solidShape : cubelets) {
-            Cube cubelet = (Cube) solidShape;
-            cubelet.setTransformation(
-                    Matrix.mul(
-                            cubelet.getTransformation(),
-                            Matrix.scaleMatrix(sx, sy, sz)
-                    )
-            );
+        Mat4 scale = Mat4.scale(sx, sy, sz);
+        for (Instance instance : cubelets) {
+            instance.transform().mulRight(scale);
         }
     }
 
     public void draw(Janim3D janim) {
-        for (SolidShape cubelet : cubelets) {
-            janim.drawSolidShape(cubelet, true);
+        if (cubelet != null) {
+            updateExposedFaces();
+            janim.drawInstances(cubelet, cubelets, true);
+        }
+    }
+
+    // Mark the cubelet faces that can be seen: those on the outside of the puzzle and, while a face is turning,
+    // those on both sides of the cut it opens. Worked out from the transforms in the puzzle's own frame, where
+    // a face normal is a column of the rotation and the cubelet position is the translation.
+    private void updateExposedFaces() {
+        if (movingFace >= 0 && isOnGrid(initialTransforms.get(faces[movingFace][4]))) {
+            movingFace = -1;
+        }
+
+        // The turning slice lies at side along axis, the cut between it and the middle slice
+        int axis = movingFace / 2;
+        int side = movingFace % 2 == 0 ? 1 : -1;
+        Arrays.fill(turning, false);
+        if (movingFace >= 0) {
+            for (int index : faces[movingFace]) {
+                turning[index] = true;
+            }
+        }
+
+        for (int i = 0; i < cubelets.size(); ++i) {
+            Mat4 m = initialTransforms.get(i);
+            boolean[] exposed = cubelets.get(i).faces();
+            for (int f = 0; f < exposed.length; ++f) {
+                int c = faceAxis[f];
+                double nx = faceSign[f] * m.get(0, c);
+                double ny = faceSign[f] * m.get(1, c);
+                double nz = faceSign[f] * m.get(2, c);
+                double outward = (nx * m.get(0, 3) + ny * m.get(1, 3) + nz * m.get(2, 3)) / spacing;
+                exposed[f] = !touching || outward > 0.5;
+
+                if (!exposed[f] && movingFace >= 0) {
+                    double normal = side * faceSign[f] * m.get(axis, c);
+                    double position = m.get(axis, 3) / spacing;
+                    exposed[f] = turning[i] ? normal < -0.5 : Math.abs(position) < 0.5 && normal > 0.5;
+                }
+            }
+        }
+    }
+
+    // Rotation part made of 0 and +-1 only, as after a whole quarter turn
+    private static boolean isOnGrid(Mat4 m) {
+        for (int row = 0; row < 3; ++row) {
+            for (int col = 0; col < 3; ++col) {
+                double v = Math.abs(m.get(row, col));
+                if (v > 1e-6 && Math.abs(v - 1) > 1e-6) return false;
+            }
         }
+        return true;
     }
 }